@@ -0,0 +1,79 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.UuidUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Right-click claim latency per backend and claim path: the single UPDATE ... RETURNING statement against
+ * the update + select transaction. MariaDB has no UPDATE ... RETURNING, so it only runs the transaction;
+ * its target needs a server, see {@link TestDatabases}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EnvelopeClaimBenchmark {
+
+    @Param({"sqlite-returning", "sqlite-transactional", "mariadb-transactional"})
+    public String target;
+
+    private Path dataFolder;
+    private DatabaseManager database;
+    private UUID envelope;
+
+    @Setup(Level.Trial)
+    public void open() throws Exception {
+        dataFolder = Files.createTempDirectory("lixi-claim-bench");
+        database = (target.startsWith("mariadb") ? Backend.MARIADB : Backend.SQLITE).open(dataFolder);
+        database.setUpdateReturning(target.endsWith("-returning"));
+    }
+
+    /** Fresh row per claim, written straight to the table so the write queue takes no part. */
+    @Setup(Level.Invocation)
+    public void insertEnvelope() throws SQLException {
+        envelope = UUID.randomUUID();
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EnvelopeWriteQueue.insertSql(database))) {
+            stmt.setBytes(1, UuidUtil.toBytes(envelope));
+            int index = database.bindAmount(stmt, 2, 10_000L);
+            stmt.setBytes(index, UuidUtil.toBytes(envelope));
+            stmt.setInt(index + 1, EnvelopeStatus.UNUSED.getCode());
+            stmt.setInt(index + 2, DatabaseManager.currencyCode(LixiCurrency.VAULT));
+            stmt.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public Optional<DatabaseManager.ClaimResult> claim() {
+        return database.claimEnvelope(envelope).join();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        database.shutdown();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -12,10 +12,14 @@ import me.typical.lixiplugin.economy.LixiCurrency;
 import me.typical.lixiplugin.hook.PlayerPointsHook;
 import me.typical.lixiplugin.hook.UniItemHook;
 import me.typical.lixiplugin.hook.VaultHook;
+import me.typical.lixiplugin.service.BroadcastService;
 import me.typical.lixiplugin.service.ChatLixiService;
 import me.typical.lixiplugin.service.DatabaseManager;
 import me.typical.lixiplugin.service.EnvelopeService;
 import me.typical.lixiplugin.service.IService;
+import me.typical.lixiplugin.service.LedgerService;
+import me.typical.lixiplugin.service.RainService;
+import me.typical.lixiplugin.service.RateLimiter;
 import me.typical.lixiplugin.util.MessageUtil;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -81,9 +85,13 @@ public final class LXPlugin extends JavaPlugin {
         registerService(new VaultHook());           // Economy integration first
         registerService(new PlayerPointsHook());    // PlayerPoints (optional)
         registerService(new DatabaseManager());     // Database before envelope operations
+        registerService(new LedgerService());       // Ledger needs the database
+        registerService(new RateLimiter());         // Throttling before claim/create paths
         registerService(new UniItemHook());         // Item provider before envelope creation
+        registerService(new BroadcastService());    // Fan-out before anything that announces
         registerService(new ChatLixiService());     // Chat lixi service
         registerService(new EnvelopeService());     // Envelope service
+        registerService(new RainService());         // Mass distribution
         registerService(new CommandHandler());      // User commands
         registerService(new AdminCommandHandler()); // Admin commands last
 
@@ -8,13 +8,24 @@ import dev.jorel.commandapi.arguments.IntegerArgument;
 import me.typical.lixiplugin.LXPlugin;
 import me.typical.lixiplugin.config.types.MainConfig;
 import me.typical.lixiplugin.config.types.MessageConfig;
+import me.typical.lixiplugin.economy.EconomyProvider;
 import me.typical.lixiplugin.hook.UniItemHook;
+import me.typical.lixiplugin.service.BroadcastService;
+import me.typical.lixiplugin.service.ChatLixiService;
 import me.typical.lixiplugin.service.IService;
+import me.typical.lixiplugin.service.StatsWindow;
+import me.typical.lixiplugin.util.MessageSlot;
 import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-/** Admin commands: setitem, givegoilixi, reload. */
+import java.util.ArrayList;
+import java.util.List;
+
+/** Admin commands: setitem, givegoilixi, reload, stats, queue. */
 public class AdminCommandHandler implements IService {
 
     private final LXPlugin plugin = LXPlugin.getInstance();
@@ -36,7 +47,9 @@ public class AdminCommandHandler implements IService {
                 .withSubcommands(
                         setItemCommand(),
                         giveItemPackCommand(),
-                        reloadCommand()
+                        reloadCommand(),
+                        statsCommand(),
+                        queueCommand()
                 )
                 .executes((sender, args) -> {
                     if (sender instanceof Player player) {
@@ -44,11 +57,15 @@ public class AdminCommandHandler implements IService {
                         MessageUtil.send(player, "<yellow>/lixiadmin setitem</yellow> <gray>- Set held item as envelope</gray>");
                         MessageUtil.send(player, "<yellow>/lixiadmin givegoilixi <tên> [số lượng]</yellow> <gray>- Give gói lì xì theo tên</gray>");
                         MessageUtil.send(player, "<yellow>/lixiadmin reload</yellow> <gray>- Reload configurations</gray>");
+                        MessageUtil.send(player, "<yellow>/lixiadmin stats</yellow> <gray>- Chat lixi stats for the last hour</gray>");
+                        MessageUtil.send(player, "<yellow>/lixiadmin queue</yellow> <gray>- Chat lixi sessions waiting for a slot</gray>");
                     } else {
                         sender.sendMessage("=== LiXi Admin Commands ===");
                         sender.sendMessage("/lixiadmin setitem - Set held item as envelope");
                         sender.sendMessage("/lixiadmin givegoilixi [amount] - Give item pack envelope");
                         sender.sendMessage("/lixiadmin reload - Reload configurations");
+                        sender.sendMessage("/lixiadmin stats - Chat lixi stats for the last hour");
+                        sender.sendMessage("/lixiadmin queue - Chat lixi sessions waiting for a slot");
                     }
                 })
                 .register();
@@ -62,14 +79,14 @@ public class AdminCommandHandler implements IService {
                     MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
 
                     if (item.getType().isAir()) {
-                        MessageUtil.send(player, messages.withPrefix(messages.getAdminSetItemNoItem()));
+                        MessageUtil.send(player, messages.template(messages.getAdminSetItemNoItem()).render());
                         return;
                     }
                     UniItemHook uniItem = plugin.getService(UniItemHook.class);
                     ItemKey itemKey = uniItem.detectItemKey(item);
 
                     if (itemKey == null) {
-                        MessageUtil.send(player, messages.withPrefix("<red>Could not detect item type! Item may be vanilla or unsupported.</red>"));
+                        MessageUtil.send(player, messages.template("<red>Could not detect item type! Item may be vanilla or unsupported.</red>").render());
                         return;
                     }
                     String pluginType = itemKey.type();
@@ -101,8 +118,9 @@ public class AdminCommandHandler implements IService {
                         }
                     }
                     plugin.getConfigManager().saveConfig(MainConfig.class, config);
+                    uniItem.invalidatePrototypes();
 
-                    MessageUtil.send(player, messages.withPrefix(messages.getAdminSetItemSuccess()));
+                    MessageUtil.send(player, messages.template(messages.getAdminSetItemSuccess()).render());
                 });
     }
 
@@ -127,15 +145,16 @@ public class AdminCommandHandler implements IService {
                     ItemStack pack = uniItem.createItemPackEnvelope(lixiName);
                     if (pack == null) {
                         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-                        MessageUtil.send(player, messages.withPrefix(messages.getAdminLixiNotFound()).replace("%name%", lixiName));
+                        MessageUtil.send(player, messages.template(messages.getAdminLixiNotFound())
+                                .render(MessageSlot.NAME, lixiName));
                         return;
                     }
                     pack.setAmount(amount);
                     player.getInventory().addItem(pack);
                     MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-                    MessageUtil.send(player, messages.withPrefix(messages.getAdminItemPackGiven())
-                            .replace("%amount%", String.valueOf(amount))
-                            .replace("%name%", lixiName));
+                    MessageUtil.send(player, messages.template(messages.getAdminItemPackGiven())
+                            .render(MessageSlot.AMOUNT, String.valueOf(amount),
+                                    MessageSlot.NAME, lixiName));
                 });
     }
 
@@ -144,13 +163,69 @@ public class AdminCommandHandler implements IService {
                 .withPermission("lixi.admin")
                 .executes((sender, args) -> {
                     plugin.getConfigManager().reloadAll();
+                    plugin.getService(UniItemHook.class).invalidatePrototypes();
                     MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
 
                     if (sender instanceof Player player) {
-                        MessageUtil.send(player, messages.withPrefix(messages.getAdminReloadSuccess()));
+                        MessageUtil.send(player, messages.template(messages.getAdminReloadSuccess()).render());
                     } else {
                         sender.sendMessage("Configuration reloaded successfully!");
                     }
                 });
     }
+
+    private CommandAPICommand statsCommand() {
+        return new CommandAPICommand("stats")
+                .withPermission("lixi.admin")
+                .executes((sender, args) -> {
+                    StatsWindow.Snapshot stats = plugin.getService(ChatLixiService.class).getStats();
+                    String drain = stats.averageDrainMillis() >= 0
+                            ? String.format("%.1fs", stats.averageDrainMillis() / 1000.0) : "-";
+                    BroadcastService broadcasts = plugin.getService(BroadcastService.class);
+                    String fanOut = broadcasts.getFanOuts() == 0 ? "-" : String.format("%.1f ms (max %.1f ms, %d broadcasts)",
+                            broadcasts.getLastLatencyMillis(), broadcasts.getMaxLatencyMillis(), broadcasts.getFanOuts());
+                    if (sender instanceof Player player) {
+                        MessageUtil.send(player, "<gold>=== Chat LiXi (last " + StatsWindow.MINUTES + " min) ===</gold>");
+                        MessageUtil.send(player, "<gray>Sessions closed: <yellow>" + stats.sessions()
+                                + "</yellow> (drained: <yellow>" + stats.drainedSessions() + "</yellow>)</gray>");
+                        MessageUtil.send(player, "<gray>Claims: <yellow>" + stats.claims()
+                                + "</yellow>, total: <yellow>" + MoneyUtil.formatMoney(stats.claimedTotal()) + "</yellow></gray>");
+                        MessageUtil.send(player, "<gray>Average drain time: <yellow>" + drain + "</yellow></gray>");
+                        MessageUtil.send(player, "<gray>Broadcast fan-out: <yellow>" + fanOut + "</yellow></gray>");
+                    } else {
+                        sender.sendMessage("=== Chat LiXi (last " + StatsWindow.MINUTES + " min) ===");
+                        sender.sendMessage("Sessions closed: " + stats.sessions() + " (drained: " + stats.drainedSessions() + ")");
+                        sender.sendMessage("Claims: " + stats.claims() + ", total: " + MoneyUtil.formatMoney(stats.claimedTotal()));
+                        sender.sendMessage("Average drain time: " + drain);
+                        sender.sendMessage("Broadcast fan-out: " + fanOut);
+                    }
+                });
+    }
+
+    private CommandAPICommand queueCommand() {
+        return new CommandAPICommand("queue")
+                .withPermission("lixi.admin")
+                .executes((sender, args) -> {
+                    ChatLixiService chatLixi = plugin.getService(ChatLixiService.class);
+                    List<ChatLixiService.QueuedSession> queue = chatLixi.getQueue();
+                    List<String> lines = new ArrayList<>();
+                    lines.add("Open sessions: " + chatLixi.getActiveCount() + ", queued: " + queue.size());
+                    long now = System.currentTimeMillis();
+                    for (int i = 0; i < queue.size(); i++) {
+                        ChatLixiService.QueuedSession queued = queue.get(i);
+                        EconomyProvider provider = plugin.getEconomyProvider(queued.currency());
+                        String amount = provider != null ? provider.format(MoneyUtil.toMajor(queued.amount()))
+                                : MoneyUtil.formatMoney(queued.amount());
+                        lines.add("#" + (i + 1) + " " + queued.creatorName() + " - " + amount + " x" + queued.slots()
+                                + ", waiting " + (now - queued.queuedAt()) / 1000 + "s");
+                    }
+                    if (sender instanceof Player player) {
+                        MessageUtil.send(player, "<gold>=== Chat LiXi Queue ===</gold>");
+                        lines.forEach(line -> MessageUtil.send(player, Component.text(line, NamedTextColor.GRAY)));
+                    } else {
+                        sender.sendMessage("=== Chat LiXi Queue ===");
+                        lines.forEach(sender::sendMessage);
+                    }
+                });
+    }
 }
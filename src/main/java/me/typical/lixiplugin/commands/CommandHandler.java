@@ -12,13 +12,17 @@ import me.typical.lixiplugin.economy.LixiCurrency;
 import me.typical.lixiplugin.service.ChatLixiService;
 import me.typical.lixiplugin.service.EnvelopeService;
 import me.typical.lixiplugin.service.IService;
+import me.typical.lixiplugin.service.RainService;
+import me.typical.lixiplugin.service.RainSplit;
+import me.typical.lixiplugin.util.MessageSlot;
 import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
 import org.bukkit.entity.Player;
 
 import java.util.Objects;
 import java.util.UUID;
 
-/** User commands: chat, give, phongbao, claim. */
+/** User commands: chat, pool, give, phongbao, rain, claim. */
 public class CommandHandler implements IService {
 
     private final LXPlugin plugin = LXPlugin.getInstance();
@@ -38,8 +42,10 @@ public class CommandHandler implements IService {
                 .withAliases("lx", "luckmoney")
                 .withSubcommands(
                         chatCommand(),
+                        poolCommand(),
                         directTransferCommand(),
                         envelopeCommand(),
+                        rainCommand(),
                         claimCommand()
                 )
                 .executes((sender, args) -> {
@@ -47,16 +53,21 @@ public class CommandHandler implements IService {
                         MessageUtil.send(player, "<gold>LiXi Commands</gold>");
                         MessageUtil.send(player, "<yellow>/lixi chat <số tiền> <số người></yellow> <gray>- Lì xì chat (tiền)</gray>");
                         MessageUtil.send(player, "<yellow>/lixi chat <số điểm> <số người> points</yellow> <gray>- Lì xì chat (PlayerPoints)</gray>");
+                        MessageUtil.send(player, "<yellow>/lixi pool <số tiền> <số người></yellow> <gray>- Lì xì toàn mạng (mọi server)</gray>");
                         MessageUtil.send(player, "<yellow>/lixi give <người chơi> <số tiền></yellow> <gray>- Chuyển tiền</gray>");
                         MessageUtil.send(player, "<yellow>/lixi give <người chơi> <số điểm> points</yellow> <gray>- Chuyển points</gray>");
                         MessageUtil.send(player, "<yellow>/lixi phongbao <số tiền></yellow> <gray>- Tạo phong bì tiền</gray>");
                         MessageUtil.send(player, "<yellow>/lixi phongbao <số điểm> points</yellow> <gray>- Tạo phong bì points</gray>");
+                        MessageUtil.send(player, "<yellow>/lixi phongbao <số tiền> x<số lượng></yellow> <gray>- Tạo nhiều phong bì cùng lúc</gray>");
+                        MessageUtil.send(player, "<yellow>/lixi rain <số tiền> [equal|random] [points]</yellow> <gray>- Mưa lì xì cho mọi người online</gray>");
                         MessageUtil.send(player, "<dark_gray>Tiền: 100, 1k, 1.5M | Points: số nguyên</dark_gray>");
                     } else {
                         sender.sendMessage("=== LiXi Commands ===");
                         sender.sendMessage("/lixi chat <amount> <limit> [points] - Chat broadcast");
+                        sender.sendMessage("/lixi pool <amount> <limit> [points] - Network-wide pool");
                         sender.sendMessage("/lixi give <player> <amount> [points] - Direct transfer");
-                        sender.sendMessage("/lixi phongbao <amount> [points] - Create envelope");
+                        sender.sendMessage("/lixi phongbao <amount> [x<count>] [points] - Create envelopes");
+                        sender.sendMessage("/lixi rain <amount> [equal|random] [points] - Split among everyone online");
                     }
                 })
                 .register();
@@ -73,16 +84,37 @@ public class CommandHandler implements IService {
                         new StringArgument("chatCurrency").replaceSuggestions(ArgumentSuggestions.strings("points"))
                 )
                 .executesPlayer((player, args) -> {
-                    double amount = ((Number) Objects.requireNonNull(args.get("chatAmount"))).doubleValue();
+                    long amount = ((Number) Objects.requireNonNull(args.get("chatAmount"))).longValue();
                     int limit = ((Number) Objects.requireNonNull(args.get("chatLimit"))).intValue();
                     Object currencyArg = args.getOptional("chatCurrency").orElse(null);
                     boolean usePoints = currencyArg != null && "points".equalsIgnoreCase(currencyArg.toString());
                     LixiCurrency currency = usePoints ? LixiCurrency.POINTS : LixiCurrency.VAULT;
-                    double amt = usePoints ? (int) amount : amount;
+                    long amt = usePoints ? MoneyUtil.truncateToWhole(amount) : amount;
                     plugin.getService(ChatLixiService.class).createSession(player, amt, limit, currency);
                 });
     }
 
+    private CommandAPICommand poolCommand() {
+        return new CommandAPICommand("pool")
+                .withPermission("lixi.pool")
+                .withArguments(
+                        new MoneyArgument("poolAmount"),
+                        new IntegerArgument("poolLimit", 1)
+                )
+                .withOptionalArguments(
+                        new StringArgument("poolCurrency").replaceSuggestions(ArgumentSuggestions.strings("points"))
+                )
+                .executesPlayer((player, args) -> {
+                    long amount = ((Number) Objects.requireNonNull(args.get("poolAmount"))).longValue();
+                    int limit = ((Number) Objects.requireNonNull(args.get("poolLimit"))).intValue();
+                    Object currencyArg = args.getOptional("poolCurrency").orElse(null);
+                    boolean usePoints = currencyArg != null && "points".equalsIgnoreCase(currencyArg.toString());
+                    LixiCurrency currency = usePoints ? LixiCurrency.POINTS : LixiCurrency.VAULT;
+                    long amt = usePoints ? MoneyUtil.truncateToWhole(amount) : amount;
+                    plugin.getService(ChatLixiService.class).createPool(player, amt, limit, currency);
+                });
+    }
+
     private CommandAPICommand directTransferCommand() {
         return new CommandAPICommand("give")
                 .withPermission("lixi.give")
@@ -95,16 +127,16 @@ public class CommandHandler implements IService {
                 )
                 .executesPlayer((sender, args) -> {
                     Player target = (Player) args.get("giveTarget");
-                    double amount = ((Number) Objects.requireNonNull(args.get("giveAmount"))).doubleValue();
+                    long amount = ((Number) Objects.requireNonNull(args.get("giveAmount"))).longValue();
                     Object currencyArg = args.getOptional("giveCurrency").orElse(null);
                     boolean usePoints = currencyArg != null && "points".equalsIgnoreCase(currencyArg.toString());
                     LixiCurrency currency = usePoints ? LixiCurrency.POINTS : LixiCurrency.VAULT;
-                    double amt = usePoints ? (int) amount : amount;
+                    long amt = usePoints ? MoneyUtil.truncateToWhole(amount) : amount;
                     if (target == null || !target.isOnline()) {
                         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
                         String targetStr = args.getRaw("giveTarget");
-                        MessageUtil.send(sender, messages.withPrefix(messages.getPlayerNotOnline())
-                                .replace("%player%", targetStr != null ? targetStr : "?"));
+                        MessageUtil.send(sender, messages.template(messages.getPlayerNotOnline())
+                                .render(MessageSlot.PLAYER, targetStr != null ? targetStr : "?"));
                         return;
                     }
                     plugin.getService(EnvelopeService.class).directTransfer(sender, target, amt, currency);
@@ -117,15 +149,62 @@ public class CommandHandler implements IService {
                 .withPermission("lixi.phongbao")
                 .withArguments(new MoneyArgument("pbAmount"))
                 .withOptionalArguments(
-                        new StringArgument("pbCurrency").replaceSuggestions(ArgumentSuggestions.strings("points"))
+                        new StringArgument("pbOption").replaceSuggestions(ArgumentSuggestions.strings("points", "x10")),
+                        new StringArgument("pbOption2").replaceSuggestions(ArgumentSuggestions.strings("points"))
                 )
                 .executesPlayer((player, args) -> {
-                    double amount = ((Number) Objects.requireNonNull(args.get("pbAmount"))).doubleValue();
-                    Object currencyArg = args.getOptional("pbCurrency").orElse(null);
-                    boolean usePoints = currencyArg != null && "points".equalsIgnoreCase(currencyArg.toString());
+                    long amount = ((Number) Objects.requireNonNull(args.get("pbAmount"))).longValue();
+                    // Options in any order: "points" for PlayerPoints, "x<count>" for a bulk mint
+                    boolean usePoints = false;
+                    int count = 1;
+                    for (String name : new String[]{"pbOption", "pbOption2"}) {
+                        Object option = args.getOptional(name).orElse(null);
+                        if (option == null) {
+                            continue;
+                        }
+                        String value = option.toString();
+                        if ("points".equalsIgnoreCase(value)) {
+                            usePoints = true;
+                        } else if (value.length() > 1 && (value.charAt(0) == 'x' || value.charAt(0) == 'X')) {
+                            try {
+                                count = Integer.parseInt(value.substring(1));
+                            } catch (NumberFormatException e) {
+                                count = 0;
+                            }
+                        } else {
+                            count = 0;
+                        }
+                    }
+                    if (count < 1) {
+                        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+                        MessageUtil.send(player, messages.template(messages.getGenericError()).render());
+                        return;
+                    }
+                    LixiCurrency currency = usePoints ? LixiCurrency.POINTS : LixiCurrency.VAULT;
+                    long amt = usePoints ? MoneyUtil.truncateToWhole(amount) : amount;
+                    plugin.getService(EnvelopeService.class).createEnvelopes(player, amt, count, currency);
+                });
+    }
+
+    private CommandAPICommand rainCommand() {
+        return new CommandAPICommand("rain")
+                .withPermission("lixi.rain")
+                .withArguments(new MoneyArgument("rainAmount"))
+                .withOptionalArguments(
+                        new StringArgument("rainSplit").replaceSuggestions(ArgumentSuggestions.strings("equal", "random")),
+                        new StringArgument("rainCurrency").replaceSuggestions(ArgumentSuggestions.strings("points"))
+                )
+                .executesPlayer((player, args) -> {
+                    long amount = ((Number) Objects.requireNonNull(args.get("rainAmount"))).longValue();
+                    Object splitArg = args.getOptional("rainSplit").orElse(null);
+                    Object currencyArg = args.getOptional("rainCurrency").orElse(null);
+                    RainSplit split = splitArg != null && "random".equalsIgnoreCase(splitArg.toString())
+                            ? RainSplit.RANDOM : RainSplit.EQUAL;
+                    boolean usePoints = (currencyArg != null && "points".equalsIgnoreCase(currencyArg.toString()))
+                            || (splitArg != null && "points".equalsIgnoreCase(splitArg.toString()));
                     LixiCurrency currency = usePoints ? LixiCurrency.POINTS : LixiCurrency.VAULT;
-                    double amt = usePoints ? (int) amount : amount;
-                    plugin.getService(EnvelopeService.class).createEnvelope(player, amt, currency);
+                    long amt = usePoints ? MoneyUtil.truncateToWhole(amount) : amount;
+                    plugin.getService(RainService.class).startRain(player, amt, split, currency);
                 });
     }
 
@@ -136,7 +215,7 @@ public class CommandHandler implements IService {
                     String idString = (String) args.get("id");
                     if (idString == null || idString.isBlank()) {
                         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-                        MessageUtil.send(player, messages.withPrefix(messages.getGenericError()));
+                        MessageUtil.send(player, messages.template(messages.getGenericError()).render());
                         return;
                     }
                     try {
@@ -145,7 +224,7 @@ public class CommandHandler implements IService {
                         service.claimSession(player, sessionId);
                     } catch (IllegalArgumentException e) {
                         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-                        MessageUtil.send(player, messages.withPrefix(messages.getGenericError()));
+                        MessageUtil.send(player, messages.template(messages.getGenericError()).render());
                     }
                 });
     }
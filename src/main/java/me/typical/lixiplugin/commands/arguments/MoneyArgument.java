@@ -5,8 +5,8 @@ import dev.jorel.commandapi.arguments.CustomArgument;
 import dev.jorel.commandapi.arguments.StringArgument;
 import me.typical.lixiplugin.util.MoneyUtil;
 
-/** CommandAPI argument: parses 100, 1k, 1.5M, 2T. */
-public class MoneyArgument extends CustomArgument<Double, String> {
+/** CommandAPI argument: parses 100, 1k, 1.5M, 2T into minor units. */
+public class MoneyArgument extends CustomArgument<Long, String> {
 
     public MoneyArgument(String nodeName) {
         super(
@@ -2,8 +2,11 @@ package me.typical.lixiplugin.config.types;
 
 import de.exlll.configlib.Comment;
 import de.exlll.configlib.Configuration;
+import de.exlll.configlib.Ignore;
+import de.exlll.configlib.PostProcess;
 import lombok.Getter;
 import lombok.Setter;
+import me.typical.lixiplugin.util.RewardAction;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -86,11 +89,27 @@ public class Lixi {
 
         @Comment({
                 "Commands run when player right-clicks. Placeholder: %player%",
-                "Example: give %player% diamond 5"
+                "Example: give %player% diamond 5",
+                "give %player% <item> [count], eco give %player% <amount> and points give %player% <amount>",
+                "are applied directly; other commands are run from the console"
         })
         private List<String> commands = List.of(
                 "give %player% diamond 1",
                 "give %player% emerald 2"
         );
+
+        /** {@link #commands} compiled once per load or reload. */
+        @Ignore
+        private List<RewardAction> rewards;
+
+        public List<RewardAction> getRewards() {
+            List<RewardAction> compiled = rewards;
+            return compiled != null ? compiled : RewardAction.compileAll(commands);
+        }
+
+        @PostProcess
+        private void compileRewards() {
+            rewards = RewardAction.compileAll(commands);
+        }
     }
 }
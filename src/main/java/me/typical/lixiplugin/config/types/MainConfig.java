@@ -20,6 +20,24 @@ public class MainConfig {
     @Comment("Visual and sound effects")
     private EffectsConfig effects = new EffectsConfig();
 
+    @Comment("Transaction ledger (audit log of every lixi money movement)")
+    private LedgerConfig ledger = new LedgerConfig();
+
+    @Comment("Background archiving of old claimed envelopes")
+    private ArchiveConfig archive = new ArchiveConfig();
+
+    @Comment("Network-wide chat lixi pools (/lixi pool), claimable from every server sharing the database")
+    private PoolConfig pool = new PoolConfig();
+
+    @Comment("Per-player throttling of claims and lixi creation")
+    private RateLimitConfig rateLimit = new RateLimitConfig();
+
+    @Comment("Who sees chat lixi broadcasts and how they are delivered")
+    private BroadcastConfig broadcast = new BroadcastConfig();
+
+    @Comment("Lixi rain (/lixi rain): one amount split across every online player")
+    private RainConfig rain = new RainConfig();
+
     @Configuration
     @Getter
     public static class DatabaseConfig {
@@ -44,6 +62,60 @@ public class MainConfig {
 
         @Comment("Database password (only for MariaDB)")
         private String password = "";
+
+        @Comment({
+                "SQLite only: enable WAL journaling with a single writer connection",
+                "and a separate read-only pool so lookups never wait on writes"
+        })
+        private boolean sqliteWalMode = false;
+
+        @Comment("SQLite only: connections in the read-only pool (WAL mode)")
+        private int sqliteReadPoolSize = 4;
+
+        @Comment("SQLite only: PRAGMA synchronous in WAL mode (OFF, NORMAL, FULL)")
+        private String sqliteSynchronous = "NORMAL";
+
+        @Comment("SQLite only: wait this long for a lock before failing (milliseconds)")
+        private int sqliteBusyTimeoutMs = 5000;
+
+        @Comment({
+                "Envelope inserts are queued and written in batches",
+                "Flush when this many envelopes are pending"
+        })
+        private int writeBatchSize = 50;
+
+        @Comment("Flush pending envelope inserts at least this often (milliseconds)")
+        private long writeFlushIntervalMs = 250;
+
+        @Comment({
+                "Maximum database operations waiting for a worker",
+                "When full, new claims and lookups fail immediately instead of queueing"
+        })
+        private int executorQueueCapacity = 500;
+
+        @Comment("Fail a database operation that takes longer than this (milliseconds)")
+        private long operationTimeoutMs = 5000;
+
+        @Comment("Run database workers on virtual threads (Java 21+)")
+        private boolean virtualThreads = true;
+
+        @Comment({
+                "Envelopes whose state is kept in memory",
+                "Already-opened envelopes are rejected from the cache without a database query"
+        })
+        private int cacheMaxSize = 10000;
+
+        @Comment("Seconds before a cached envelope state is dropped")
+        private long cacheTtlSeconds = 600;
+
+        @Comment({
+                "Rows per transaction for background data migrations: copying the old envelopes",
+                "table to the compact schema and converting money columns to minor units"
+        })
+        private int migrationChunkSize = 500;
+
+        @Comment("Pause between migration chunks so live claims are not starved (milliseconds)")
+        private long migrationChunkDelayMs = 50;
     }
 
     @Configuration
@@ -69,6 +141,39 @@ public class MainConfig {
 
         @Comment("Time in seconds before unclaimed lixi expires and refunds to creator")
         private int expirySeconds = 60;
+
+        @Comment({
+                "Write session progress to the database at least this often (milliseconds)",
+                "Unfinished sessions are restored or refunded from this journal after a crash or restart"
+        })
+        private long journalFlushIntervalMs = 200;
+
+        @Comment("Broadcast a summary (claims, luckiest player, time to drain, median share) when a session closes")
+        private boolean summaryBroadcast = true;
+
+        @Comment({
+                "Announce who claimed each chat lixi",
+                "Claims within one window are combined into a single line per session"
+        })
+        private boolean claimFeed = true;
+
+        @Comment("Claim announcement window (milliseconds, 50 = one tick)")
+        private long claimFeedWindowMs = 500;
+
+        @Comment({
+                "Most chat lixi sessions open at once (0 = no limit)",
+                "Further sessions wait in a queue and are announced as slots free up"
+        })
+        private int maxActiveSessions = 20;
+
+        @Comment("Most chat lixi sessions one player can have open at once (0 = no limit)")
+        private int maxActivePerCreator = 2;
+
+        @Comment("Most sessions waiting in the queue; new sessions are refused when it is full")
+        private int maxQueuedSessions = 50;
+
+        @Comment("Most queued sessions per player")
+        private int maxQueuedPerCreator = 2;
     }
 
     @Configuration
@@ -80,6 +185,9 @@ public class MainConfig {
         @Comment("Maximum points for points-based envelope (PlayerPoints)")
         private int maxPoints = 100000;
 
+        @Comment("Most envelopes minted by one /lixi phongbao <amount> x<count>")
+        private int maxBulkCount = 36;
+
         @Comment({
                 "Custom item plugin configurations",
                 "Set the item ID for each supported plugin",
@@ -151,4 +259,121 @@ public class MainConfig {
         @Comment("Enable particle effects when receiving lixi")
         private boolean particles = true;
     }
+
+    @Configuration
+    @Getter
+    public static class LedgerConfig {
+        @Comment("Record create, claim, transfer, refund and expiry events in the ledger table")
+        private boolean enabled = true;
+
+        @Comment("Ledger entries written per batch")
+        private int batchSize = 200;
+
+        @Comment("Write pending ledger entries at least this often (milliseconds)")
+        private long flushIntervalMs = 1000;
+    }
+
+    @Configuration
+    @Getter
+    public static class ArchiveConfig {
+        @Comment("Move old claimed envelopes into the envelopes_archive table")
+        private boolean enabled = true;
+
+        @Comment("Archive envelopes claimed more than this many days ago")
+        private int olderThanDays = 30;
+
+        @Comment("Minutes between archive runs")
+        private long intervalMinutes = 60;
+
+        @Comment("Rows moved per transaction")
+        private int chunkSize = 500;
+
+        @Comment("Pause between chunks so live claims are not starved (milliseconds)")
+        private long chunkDelayMs = 100;
+
+        @Comment("SQLite only: pages released by incremental vacuum after each run")
+        private int vacuumPages = 2000;
+    }
+
+    @Configuration
+    @Getter
+    public static class PoolConfig {
+        @Comment({
+                "Enable /lixi pool. Meant for several servers sharing one MariaDB (10.6+ for SKIP LOCKED)",
+                "Limits and expiry are taken from the chat-lixi section"
+        })
+        private boolean enabled = false;
+
+        @Comment("How often each server checks for new pools to announce and expired pools to refund (seconds)")
+        private int pollIntervalSeconds = 2;
+
+        @Comment("Extra time after expiry before a pool is refunded, to absorb clock differences between servers (seconds)")
+        private int settleGraceSeconds = 5;
+    }
+
+    @Configuration
+    @Getter
+    public static class RateLimitConfig {
+        @Comment("Reject requests from players who exceed the limits below")
+        private boolean enabled = true;
+
+        @Comment("/lixi claim and envelope right-clicks")
+        private BucketConfig claim = new BucketConfig(5, 2.0);
+
+        @Comment("/lixi chat, /lixi pool and /lixi phongbao")
+        private BucketConfig create = new BucketConfig(3, 0.5);
+
+        @Comment("Forget a player's limits after this many idle seconds")
+        private long idleEvictSeconds = 300;
+    }
+
+    @Configuration
+    @Getter
+    public static class BroadcastConfig {
+        @Comment("Only players with this permission see chat lixi broadcasts (empty = everyone)")
+        private String permission = "";
+
+        @Comment("Only players in this world see chat lixi broadcasts (empty = every world)")
+        private String world = "";
+
+        @Comment({
+                "Only players within this many blocks of the creator see a new chat lixi (0 = no limit)",
+                "Pool announcements and session summaries ignore the radius"
+        })
+        private double radius = 0;
+
+        @Comment("Folia only: players handed to each parallel delivery task")
+        private int chunkSize = 64;
+
+        @Comment("Log a warning when delivering one broadcast takes longer than this (milliseconds, 0 = never)")
+        private long slowFanOutWarnMs = 250;
+    }
+
+    @Configuration
+    @Getter
+    public static class RainConfig {
+        @Comment({
+                "Deposits started per tick",
+                "Lower values spread a large rain over more ticks"
+        })
+        private int batchSize = 50;
+    }
+
+    @Configuration
+    @Getter
+    public static class BucketConfig {
+        @Comment("Requests allowed in a burst")
+        private int capacity;
+
+        @Comment("Requests regained per second")
+        private double refillPerSecond;
+
+        private BucketConfig() {
+        }
+
+        BucketConfig(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
 }
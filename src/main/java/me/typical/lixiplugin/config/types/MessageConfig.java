@@ -2,7 +2,16 @@ package me.typical.lixiplugin.config.types;
 
 import de.exlll.configlib.Comment;
 import de.exlll.configlib.Configuration;
+import de.exlll.configlib.Ignore;
+import de.exlll.configlib.PostProcess;
 import lombok.Getter;
+import me.typical.lixiplugin.util.MessageTemplate;
+import me.typical.lixiplugin.util.MessageUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @Getter
@@ -19,6 +28,16 @@ public class MessageConfig {
             "<click:run_command:'/lixi claim %session_id%'><hover:show_text:'<green>Nhấn để nhận!</green>'>" +
             "<gradient:#00ff00:#00aa00>[NHẬN NGAY]</gradient></hover></click></white>";
 
+    @Comment({
+            "Message when a chat lixi has to wait for a free slot before it is announced",
+            "Placeholders: %count% (position in the queue)"
+    })
+    private String chatLixiQueued = "<prefix><yellow>Đang có nhiều lì xì, lì xì của bạn đang xếp hàng ở vị trí</yellow> "
+            + "<gold>%count%</gold><yellow> và sẽ được gửi khi có chỗ trống.</yellow>";
+
+    @Comment("Message when the chat lixi queue is full (or the player has too many queued)")
+    private String chatLixiQueueFull = "<prefix><red>Hàng chờ lì xì đã đầy! Vui lòng thử lại sau.</red>";
+
     @Comment({
             "Message sent to player who successfully claimed from chat lixi",
             "Placeholders: %amount%"
@@ -34,12 +53,51 @@ public class MessageConfig {
     @Comment("Message when chat lixi has no more slots")
     private String chatLixiNoSlots = "<prefix><red>Lì xì này đã được nhận hết!</red>";
 
+    @Comment({
+            "Broadcast listing who claimed from a chat lixi; claims close together share one line",
+            "Placeholders: %names%, %count%, %amount% (total of those claims), %player% (creator)"
+    })
+    private String chatLixiClaimFeed = "<prefix><gold>%names%</gold> <gray>đã nhận</gray> <gold>%amount%</gold> "
+            + "<gray>từ lì xì của</gray> <gold>%player%</gold>";
+
+    @Comment({
+            "Broadcast when a chat lixi session closes (fully claimed or expired)",
+            "Placeholders: %player%, %count%, %limit%, %amount%, %luckiest%, %top_amount%, %duration%, %p50%, %p90%"
+    })
+    private String chatLixiSummary = "<prefix><gray>Lì xì của</gray> <gold>%player%</gold> <gray>đã kết thúc:</gray> "
+            + "<gold>%count%/%limit%</gold> <gray>người nhận</gray> <gold>%amount%</gold><gray>. May mắn nhất:</gray> "
+            + "<gold>%luckiest%</gold> <gray>(</gray><gold>%top_amount%</gold><gray>) • Thời gian:</gray> <gold>%duration%</gold> "
+            + "<gray>• Trung vị:</gray> <gold>%p50%</gold> <gray>• P90:</gray> <gold>%p90%</gold>";
+
     @Comment({
             "Message when chat lixi expires and refunds to creator",
             "Placeholders: %amount%"
     })
     private String chatLixiRefund = "<prefix><yellow>Lì xì của bạn đã hết hạn. Hoàn lại</yellow> <gold>%amount%</gold>";
 
+    @Comment({
+            "Broadcast when a lixi rain starts",
+            "Placeholders: %player%, %amount% (total), %count% (recipients)"
+    })
+    private String rainStarted = "<prefix><gold>%player%</gold> <white>đang rải mưa lì xì</white> <gold>%amount%</gold> "
+            + "<white>cho</white> <gold>%count%</gold> <white>người chơi!</white>";
+
+    @Comment({
+            "Message sent to each player who receives a share of a lixi rain",
+            "Placeholders: %player%, %amount%"
+    })
+    private String rainReceived = "<prefix><green>Bạn nhận được</green> <gold>%amount%</gold> <green>từ mưa lì xì của</green> <gold>%player%</gold><green>!</green>";
+
+    @Comment({
+            "Message sent to the creator when a lixi rain has been fully delivered",
+            "Placeholders: %count% (deliveries), %duration%, %limit% (deliveries per second), %amount% (refunded)"
+    })
+    private String rainFinished = "<prefix><green>Mưa lì xì hoàn tất:</green> <gold>%count%</gold> <green>người nhận trong</green> "
+            + "<gold>%duration%</gold> <gray>(%limit%/s)</gray><green>. Hoàn lại</green> <gold>%amount%</gold>";
+
+    @Comment("Message when nobody else is online to receive a lixi rain")
+    private String rainNoRecipients = "<prefix><red>Không có người chơi nào khác đang online!</red>";
+
     @Comment({
             "Message sent to sender when transferring money",
             "Placeholders: %player%, %amount%"
@@ -58,6 +116,18 @@ public class MessageConfig {
     })
     private String envelopeCreated = "<prefix><green>Đã tạo phong bao lì xì</green> <gold>%amount%</gold>";
 
+    @Comment({
+            "Message when several envelopes are created at once",
+            "Placeholders: %count%, %amount% (per envelope)"
+    })
+    private String envelopesCreated = "<prefix><green>Đã tạo</green> <gold>%count%</gold> <green>phong bao lì xì, mỗi phong bao</green> <gold>%amount%</gold>";
+
+    @Comment("Message when asking for more envelopes than allowed at once. Placeholder: %max%")
+    private String envelopeBulkTooMany = "<prefix><red>Số lượng phong bao quá lớn! Tối đa:</red> <gold>%max%</gold>";
+
+    @Comment("Message when the inventory cannot hold the new envelopes. Placeholder: %count%")
+    private String inventoryFull = "<prefix><red>Túi đồ không đủ chỗ! Cần</red> <gold>%count%</gold> <red>ô trống.</red>";
+
     @Comment({
             "Message when successfully claiming an envelope",
             "Placeholders: %amount%"
@@ -103,6 +173,9 @@ public class MessageConfig {
     @Comment("Message when limit is above maximum")
     private String limitTooHigh = "<prefix><red>Số lượng người nhận quá cao! Tối đa:</red> <gold>%max%</gold>";
 
+    @Comment("Message when the amount can't give every share at least one unit (0.01 money, 1 point). Placeholder: %count%")
+    private String rainTooSmall = "<prefix><red>Số tiền quá nhỏ để chia cho</red> <gold>%count%</gold> <red>người chơi!</red>";
+
     @Comment("Message when target player is not online")
     private String playerNotOnline = "<prefix><red>Người chơi</red> <gold>%player%</gold> <red>không online!</red>";
 
@@ -118,7 +191,41 @@ public class MessageConfig {
     @Comment("Message when PlayerPoints is not available")
     private String pointsNotAvailable = "<prefix><red>PlayerPoints chưa được cài đặt hoặc không khả dụng!</red>";
 
+    @Comment("Message when a player claims or creates lixi too quickly")
+    private String rateLimited = "<prefix><red>Bạn thao tác quá nhanh! Vui lòng thử lại sau giây lát.</red>";
+
+    /** Message templates keyed by their raw text, compiled once per load or reload. */
+    @Ignore
+    private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
     public String withPrefix(String message) {
         return message.replace("<prefix>", prefix);
     }
+
+    /**
+     * Compiled template for one of this config's messages, e.g. {@code template(getChatLixiRefund())}.
+     * Any other string is compiled for this call only, so the cache stays bounded by the config.
+     */
+    public MessageTemplate template(String message) {
+        MessageTemplate template = templates.get(message);
+        return template != null ? template : MessageTemplate.compile(withPrefix(message));
+    }
+
+    @PostProcess
+    private void compileTemplates() {
+        templates.clear();
+        for (Field field : MessageConfig.class.getDeclaredFields()) {
+            if (field.getType() != String.class || Modifier.isStatic(field.getModifiers()) || field.getName().equals("prefix")) {
+                continue;
+            }
+            try {
+                String message = (String) field.get(this);
+                if (message != null && !message.isEmpty()) {
+                    templates.put(message, MessageTemplate.compile(withPrefix(message)));
+                }
+            } catch (IllegalAccessException | RuntimeException e) {
+                MessageUtil.warn("Could not compile message '" + field.getName() + "': " + e.getMessage());
+            }
+        }
+    }
 }
@@ -9,18 +9,23 @@ import me.typical.lixiplugin.config.types.MainConfig;
 import me.typical.lixiplugin.economy.EconomyProvider;
 import me.typical.lixiplugin.economy.LixiCurrency;
 import me.typical.lixiplugin.service.IService;
+import me.typical.lixiplugin.util.MessageSlot;
+import me.typical.lixiplugin.util.MessageTemplate;
 import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** Hook for custom envelope items (vanilla + ItemsAdder/Oraxen/Nexo). */
 public class UniItemHook implements IService {
@@ -30,6 +35,9 @@ public class UniItemHook implements IService {
     private NamespacedKey lixiIdKey;
     private NamespacedKey lixiTypeKey;
     private ItemProvider uniItemProvider;
+    /** Envelope item with its display name applied and the lore compiled; rebuilt after invalidation. */
+    private volatile EnvelopePrototype envelopePrototype;
+    private final Map<String, ItemStack> itemPackPrototypes = new ConcurrentHashMap<>();
 
     @Override
     public void setup() {
@@ -44,44 +52,75 @@ public class UniItemHook implements IService {
     public void shutdown() {
     }
 
-    public ItemStack createEnvelopeItem(double amount, UUID id, LixiCurrency currencyType) {
-        MainConfig.EnvelopeConfig envelopeConfig = plugin.getConfigManager()
-                .getConfig(MainConfig.class)
-                .getEnvelope();
-
-        ItemStack item = createItem(envelopeConfig);
+    /** @param amount envelope value in minor units */
+    public ItemStack createEnvelopeItem(long amount, UUID id, LixiCurrency currencyType) {
+        EnvelopePrototype prototype = envelopePrototype();
 
         EconomyProvider provider = plugin.getEconomyProvider(currencyType != null ? currencyType : LixiCurrency.VAULT);
         String formattedAmount = provider != null && provider.isAvailable()
-                ? provider.format(amount) : String.valueOf(amount);
+                ? provider.format(MoneyUtil.toMajor(amount)) : MoneyUtil.formatMoney(amount);
 
+        ItemStack item = prototype.base().clone();
         item.editMeta(meta -> {
-            String displayName = envelopeConfig.getDisplayName();
-            Component nameComponent = miniMessage.deserialize(displayName);
-            meta.displayName(nameComponent);
-
-            String[] loreTemplate = envelopeConfig.getLore();
-            List<Component> loreComponents = new ArrayList<>();
-            for (String loreLine : loreTemplate) {
-                String processedLine = loreLine.replace("%amount%", formattedAmount);
-                loreComponents.add(miniMessage.deserialize(processedLine));
+            List<Component> loreComponents = new ArrayList<>(prototype.lore().size());
+            for (MessageTemplate loreLine : prototype.lore()) {
+                loreComponents.add(loreLine.render(MessageSlot.AMOUNT, formattedAmount));
             }
             meta.lore(loreComponents);
-
             meta.getPersistentDataContainer().set(lixiIdKey, PersistentDataType.STRING, id.toString());
         });
-
         return item;
     }
 
     /** Create item pack envelope by lixi type name. Right-click runs commands from lixi.yml. */
     public ItemStack createItemPackEnvelope(String lixiName) {
-        Lixi.LixiEntry entry = getLixiEntry(lixiName);
-        if (entry == null) {
-            return null;
+        ItemStack prototype = itemPackPrototypes.get(lixiName);
+        if (prototype == null) {
+            Lixi.LixiEntry entry = getLixiEntry(lixiName);
+            if (entry == null) {
+                return null;
+            }
+            ItemStack custom = resolveCustomItem(entry);
+            prototype = buildItemPackPrototype(lixiName, entry, custom != null ? custom : createVanillaItem(entry));
+            // A custom item that did not resolve (its plugin may still be loading) is retried next time
+            if (custom != null || !hasCustomItem(entry)) {
+                itemPackPrototypes.put(lixiName, prototype);
+            }
         }
+        return prototype.clone();
+    }
 
-        ItemStack item = createItemFromLixiEntry(entry);
+    /** Drops the cached prototypes; call after the envelope item or lixi.yml changes. */
+    public void invalidatePrototypes() {
+        envelopePrototype = null;
+        itemPackPrototypes.clear();
+    }
+
+    private EnvelopePrototype envelopePrototype() {
+        EnvelopePrototype prototype = envelopePrototype;
+        if (prototype != null) {
+            return prototype;
+        }
+        MainConfig.EnvelopeConfig envelopeConfig = plugin.getConfigManager()
+                .getConfig(MainConfig.class)
+                .getEnvelope();
+
+        ItemStack configured = resolveConfiguredItem(envelopeConfig);
+        ItemStack base = configured != null ? configured : new ItemStack(Material.RED_CANDLE);
+        base.editMeta(meta -> meta.displayName(miniMessage.deserialize(envelopeConfig.getDisplayName())));
+        List<MessageTemplate> lore = new ArrayList<>();
+        for (String loreLine : envelopeConfig.getLore()) {
+            lore.add(MessageTemplate.compile(loreLine));
+        }
+        prototype = new EnvelopePrototype(base, List.copyOf(lore));
+        // A configured custom item that did not resolve (its plugin may still be loading) is retried next time
+        if (configured != null || !hasConfiguredItem(envelopeConfig)) {
+            envelopePrototype = prototype;
+        }
+        return prototype;
+    }
+
+    private ItemStack buildItemPackPrototype(String lixiName, Lixi.LixiEntry entry, ItemStack item) {
         item.editMeta(meta -> {
             Component nameComponent = miniMessage.deserialize(entry.getDisplayName());
             meta.displayName(nameComponent);
@@ -94,23 +133,10 @@ public class UniItemHook implements IService {
 
             meta.getPersistentDataContainer().set(lixiTypeKey, PersistentDataType.STRING, lixiName);
         });
-
         return item;
     }
 
-    private ItemStack createItemFromLixiEntry(Lixi.LixiEntry entry) {
-        if (entry.getItemsadder() != null && !entry.getItemsadder().isBlank()) {
-            ItemStack item = uniItemProvider.item(new ItemKey("itemsadder", entry.getItemsadder()));
-            if (item != null) return item;
-        }
-        if (entry.getOraxen() != null && !entry.getOraxen().isBlank()) {
-            ItemStack item = uniItemProvider.item(new ItemKey("oraxen", entry.getOraxen()));
-            if (item != null) return item;
-        }
-        if (entry.getNexo() != null && !entry.getNexo().isBlank()) {
-            ItemStack item = uniItemProvider.item(new ItemKey("nexo", entry.getNexo()));
-            if (item != null) return item;
-        }
+    private ItemStack createVanillaItem(Lixi.LixiEntry entry) {
         Material mat = Material.PAPER;
         try {
             mat = Material.valueOf(entry.getMaterial() != null ? entry.getMaterial() : "PAPER");
@@ -123,6 +149,27 @@ public class UniItemHook implements IService {
         return item;
     }
 
+    /** ItemsAdder → Oraxen → Nexo, or null */
+    private ItemStack resolveCustomItem(Lixi.LixiEntry entry) {
+        if (isSet(entry.getItemsadder())) {
+            ItemStack item = uniItemProvider.item(new ItemKey("itemsadder", entry.getItemsadder()));
+            if (item != null) return item;
+        }
+        if (isSet(entry.getOraxen())) {
+            ItemStack item = uniItemProvider.item(new ItemKey("oraxen", entry.getOraxen()));
+            if (item != null) return item;
+        }
+        if (isSet(entry.getNexo())) {
+            ItemStack item = uniItemProvider.item(new ItemKey("nexo", entry.getNexo()));
+            if (item != null) return item;
+        }
+        return null;
+    }
+
+    private static boolean hasCustomItem(Lixi.LixiEntry entry) {
+        return isSet(entry.getItemsadder()) || isSet(entry.getOraxen()) || isSet(entry.getNexo());
+    }
+
     public Lixi.LixiEntry getLixiEntry(String lixiName) {
         Map<String, Lixi.LixiEntry> map = plugin.getConfigManager().getConfig(Lixi.class).getLixi();
         return map != null ? map.get(lixiName) : null;
@@ -132,14 +179,13 @@ public class UniItemHook implements IService {
         return plugin.getConfigManager().getConfig(Lixi.class).getLixi();
     }
 
-    /** ItemsAdder → Oraxen → Nexo → Vanilla fallback */
-    private ItemStack createItem(MainConfig.EnvelopeConfig config) {
+    /** ItemsAdder → Oraxen → Nexo, or null (the caller falls back to vanilla) */
+    private ItemStack resolveConfiguredItem(MainConfig.EnvelopeConfig config) {
         String itemsAdderItemId = config.getItemsadder().getItemId();
         if (itemsAdderItemId != null && !itemsAdderItemId.trim().isEmpty()) {
             ItemStack item = uniItemProvider.item(new ItemKey("itemsadder", itemsAdderItemId));
             if (item != null) {
                 return item;
-            } else {
             }
         }
 
@@ -148,7 +194,6 @@ public class UniItemHook implements IService {
             ItemStack item = uniItemProvider.item(new ItemKey("oraxen", oraxenItemId));
             if (item != null) {
                 return item;
-            } else {
             }
         }
 
@@ -159,8 +204,17 @@ public class UniItemHook implements IService {
                 return item;
             }
         }
+        return null;
+    }
+
+    private static boolean hasConfiguredItem(MainConfig.EnvelopeConfig config) {
+        return isSet(config.getItemsadder().getItemId())
+                || isSet(config.getOraxen().getItemId())
+                || isSet(config.getNexo().getItemId());
+    }
 
-        return new ItemStack(Material.RED_CANDLE);
+    private static boolean isSet(String itemId) {
+        return itemId != null && !itemId.isBlank();
     }
 
     public ItemKey detectItemKey(ItemStack item) {
@@ -170,43 +224,44 @@ public class UniItemHook implements IService {
         return uniItemProvider.key(item);
     }
 
-    public boolean isLixiItemPack(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) {
-            return false;
+    /**
+     * Classifies a held item with one meta copy and one PDC read. Items without meta (most blocks and
+     * plain vanilla items) exit before any copy is made.
+     */
+    public LixiItem classify(ItemStack item) {
+        if (item == null || item.getType().isAir() || !item.hasItemMeta()) {
+            return LixiItem.NONE;
         }
-        return item.getItemMeta().getPersistentDataContainer().has(lixiTypeKey, PersistentDataType.STRING);
-    }
-
-    public String getLixiItemPackName(ItemStack item) {
-        if (!isLixiItemPack(item)) {
-            return null;
-        }
-        return item.getItemMeta().getPersistentDataContainer().get(lixiTypeKey, PersistentDataType.STRING);
-    }
-
-    public boolean isLixiEnvelope(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) {
-            return false;
+        PersistentDataContainer data = item.getItemMeta().getPersistentDataContainer();
+        String packName = data.get(lixiTypeKey, PersistentDataType.STRING);
+        if (packName != null) {
+            return new LixiItem(LixiItemKind.ITEM_PACK, packName, null);
         }
-        return item.getItemMeta()
-                .getPersistentDataContainer()
-                .has(lixiIdKey, PersistentDataType.STRING);
-    }
-
-    public UUID getEnvelopeId(ItemStack item) {
-        if (!isLixiEnvelope(item)) {
-            return null;
+        String idString = data.get(lixiIdKey, PersistentDataType.STRING);
+        if (idString == null) {
+            return LixiItem.NONE;
         }
-        String idString = item.getItemMeta()
-                .getPersistentDataContainer()
-                .get(lixiIdKey, PersistentDataType.STRING);
+        UUID id;
         try {
-            return UUID.fromString(idString);
+            id = UUID.fromString(idString);
         } catch (IllegalArgumentException e) {
-            return null;
+            id = null;
         }
-        
+        return new LixiItem(LixiItemKind.ENVELOPE, null, id);
     }
 
-}
+    private record EnvelopePrototype(ItemStack base, List<MessageTemplate> lore) {
+    }
 
+    public enum LixiItemKind {
+        NONE, ITEM_PACK, ENVELOPE
+    }
+
+    /**
+     * @param packName lixi.yml entry name; only set for ITEM_PACK
+     * @param envelopeId only set for ENVELOPE, and null there if the stored ID is malformed
+     */
+    public record LixiItem(LixiItemKind kind, String packName, UUID envelopeId) {
+        public static final LixiItem NONE = new LixiItem(LixiItemKind.NONE, null, null);
+    }
+}
@@ -0,0 +1,41 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * Who receives a broadcast. Null fields do not filter; the radius only applies when a center is set.
+ * World and radius checks read the player's location, so they must run on the player's region thread.
+ */
+public record BroadcastAudience(String permission, String world, Location center, double radius) {
+
+    public static final BroadcastAudience ALL = new BroadcastAudience(null, null, null, 0);
+
+    /** The configured chat lixi audience, centered on the given location (may be null). */
+    public static BroadcastAudience fromConfig(MainConfig.BroadcastConfig config, Location center) {
+        String permission = config.getPermission().isBlank() ? null : config.getPermission();
+        String world = config.getWorld().isBlank() ? null : config.getWorld();
+        boolean ranged = center != null && config.getRadius() > 0;
+        return new BroadcastAudience(permission, world, ranged ? center.clone() : null, ranged ? config.getRadius() : 0);
+    }
+
+    boolean needsLocation() {
+        return world != null || center != null;
+    }
+
+    boolean matches(Player player) {
+        if (permission != null && !player.hasPermission(permission)) {
+            return false;
+        }
+        if (!needsLocation()) {
+            return true;
+        }
+        Location location = player.getLocation();
+        if (world != null && !location.getWorld().getName().equalsIgnoreCase(world)) {
+            return false;
+        }
+        return center == null || (location.getWorld().equals(center.getWorld())
+                && location.distanceSquared(center) <= radius * radius);
+    }
+}
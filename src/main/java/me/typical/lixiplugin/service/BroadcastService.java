@@ -0,0 +1,164 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.LXPlugin;
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.util.MessageUtil;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcast fan-out. On Folia the online players are split into chunks delivered by parallel async tasks;
+ * audiences that filter by world or radius are checked and sent on each player's own region thread
+ * through per-entity scheduling. Paper has a single main thread, so delivery stays one loop there.
+ * Every fan-out is timed from the call until the last player is handled.
+ */
+public class BroadcastService implements IService {
+
+    private final LXPlugin plugin = LXPlugin.getInstance();
+    private final AtomicLong fanOuts = new AtomicLong();
+    private final AtomicLong lastLatencyNanos = new AtomicLong(-1);
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    @Override
+    public void setup() {
+        MessageUtil.info("BroadcastService initialized");
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    public CompletableFuture<FanOut> broadcast(Component message) {
+        return broadcast(message, BroadcastAudience.ALL);
+    }
+
+    /** Sends to every online player in the audience and to the console; completes when the last player is handled. */
+    public CompletableFuture<FanOut> broadcast(Component message, BroadcastAudience audience) {
+        long start = System.nanoTime();
+        Bukkit.getConsoleSender().sendMessage(message);
+        List<Player> players = new ArrayList<>(Bukkit.getOnlinePlayers());
+        Delivery delivery = new Delivery(message, audience, players.size(), start);
+        if (players.isEmpty()) {
+            delivery.finish();
+            return delivery.result;
+        }
+
+        if (!plugin.getFoliaLib().isFolia()) {
+            if (Bukkit.isPrimaryThread()) {
+                players.forEach(delivery::deliver);
+            } else {
+                plugin.getFoliaLib().getScheduler().runNextTick(task -> players.forEach(delivery::deliver));
+            }
+            return delivery.result;
+        }
+
+        int chunkSize = Math.max(1, plugin.getConfigManager().getConfig(MainConfig.class).getBroadcast().getChunkSize());
+        for (int from = 0; from < players.size(); from += chunkSize) {
+            List<Player> chunk = players.subList(from, Math.min(from + chunkSize, players.size()));
+            plugin.getFoliaLib().getScheduler().runAsync(task -> {
+                for (Player player : chunk) {
+                    if (audience.needsLocation()) {
+                        plugin.getFoliaLib().getScheduler().runAtEntity(player, t -> delivery.deliver(player))
+                                .whenComplete((r, ex) -> delivery.skipIfPending(player));
+                    } else {
+                        delivery.deliver(player);
+                    }
+                }
+            });
+        }
+        return delivery.result;
+    }
+
+    public long getFanOuts() {
+        return fanOuts.get();
+    }
+
+    /** Latency of the most recent fan-out in milliseconds, or -1 before the first. */
+    public double getLastLatencyMillis() {
+        long nanos = lastLatencyNanos.get();
+        return nanos < 0 ? -1 : nanos / 1_000_000.0;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    private void recordLatency(FanOut fanOut) {
+        fanOuts.incrementAndGet();
+        lastLatencyNanos.set(fanOut.elapsedNanos());
+        maxLatencyNanos.accumulateAndGet(fanOut.elapsedNanos(), Math::max);
+        long warnMs = plugin.getConfigManager().getConfig(MainConfig.class).getBroadcast().getSlowFanOutWarnMs();
+        if (warnMs > 0 && fanOut.elapsedNanos() > TimeUnit.MILLISECONDS.toNanos(warnMs)) {
+            MessageUtil.warn("Broadcast to " + fanOut.recipients() + "/" + fanOut.players() + " players took "
+                    + String.format("%.1f", fanOut.elapsedNanos() / 1_000_000.0) + " ms");
+        }
+    }
+
+    /** Tracks one fan-out; each player is counted exactly once, whether delivered, filtered out or gone. */
+    private final class Delivery {
+        final Component message;
+        final BroadcastAudience audience;
+        final int players;
+        final long start;
+        final AtomicInteger pending;
+        final AtomicInteger recipients = new AtomicInteger();
+        final Set<UUID> handled = ConcurrentHashMap.newKeySet();
+        final CompletableFuture<FanOut> result = new CompletableFuture<>();
+
+        Delivery(Component message, BroadcastAudience audience, int players, long start) {
+            this.message = message;
+            this.audience = audience;
+            this.players = players;
+            this.start = start;
+            this.pending = new AtomicInteger(players);
+        }
+
+        void deliver(Player player) {
+            if (!handled.add(player.getUniqueId())) {
+                return;
+            }
+            try {
+                if (player.isOnline() && audience.matches(player)) {
+                    player.sendMessage(message);
+                    recipients.incrementAndGet();
+                }
+            } finally {
+                countDown();
+            }
+        }
+
+        /** Counts a player whose entity task never ran because they logged out. */
+        void skipIfPending(Player player) {
+            if (handled.add(player.getUniqueId())) {
+                countDown();
+            }
+        }
+
+        private void countDown() {
+            if (pending.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        void finish() {
+            FanOut fanOut = new FanOut(players, recipients.get(), System.nanoTime() - start);
+            recordLatency(fanOut);
+            result.complete(fanOut);
+        }
+    }
+
+    /** @param players online when the broadcast started; recipients those who matched the audience */
+    public record FanOut(int players, int recipients, long elapsedNanos) {
+    }
+}
@@ -1,83 +1,231 @@
 package me.typical.lixiplugin.service;
 
+import com.tcoded.folialib.enums.EntityTaskResult;
+import com.tcoded.folialib.wrapper.task.WrappedTask;
 import me.typical.lixiplugin.LXPlugin;
 import me.typical.lixiplugin.config.types.MainConfig;
 import me.typical.lixiplugin.config.types.MessageConfig;
 import me.typical.lixiplugin.economy.EconomyProvider;
 import me.typical.lixiplugin.economy.LixiCurrency;
 import me.typical.lixiplugin.util.EffectUtil;
+import me.typical.lixiplugin.util.MessageSlot;
 import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Location;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
-/** Chat lixi broadcasts: players create sessions, others claim via click. */
+/**
+ * Chat lixi broadcasts: players create sessions, others claim via click.
+ * Session expiry is driven by one timing wheel ticked once per second instead of a scheduler task per session.
+ * Sessions and claims are journaled to the database so a crash or restart never loses the escrowed money.
+ */
 public class ChatLixiService implements IService {
 
+    private static final int FEED_NAMES_SHOWN = 5;
+
     private final LXPlugin plugin = LXPlugin.getInstance();
     private final Map<UUID, ChatLixiSession> activeSessions = new ConcurrentHashMap<>();
+    private final ExpiryWheel expiryWheel = new ExpiryWheel();
+    private final StatsWindow statsWindow = new StatsWindow();
+    private final ClaimFeed claimFeed = new ClaimFeed(this::announceClaims);
+    private final SessionAdmission admission = new SessionAdmission();
+    private BroadcastService broadcasts;
+    private WrappedTask expiryTask;
+    private SessionJournal journal;
+    private PoolStore poolStore;
+    private WrappedTask poolTask;
+    /** Pools already announced on this server, with their expiry time. */
+    private final Map<UUID, Long> announcedPools = new ConcurrentHashMap<>();
 
     @Override
     public void setup() {
+        broadcasts = plugin.getService(BroadcastService.class);
+        DatabaseManager database = plugin.getService(DatabaseManager.class);
+        if (database != null) {
+            MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+            journal = new SessionJournal(database, config.getJournalFlushIntervalMs());
+            replayJournal();
+
+            MainConfig.PoolConfig poolConfig = plugin.getConfigManager().getConfig(MainConfig.class).getPool();
+            if (poolConfig.isEnabled()) {
+                poolStore = new PoolStore(database);
+                long period = Math.max(1, poolConfig.getPollIntervalSeconds()) * 20L;
+                poolTask = plugin.getFoliaLib().getScheduler().runTimer(this::pollPools, period, period);
+                MessageUtil.info("Network lixi pools enabled");
+            }
+        }
+        expiryTask = plugin.getFoliaLib().getScheduler().runTimer(this::tickExpiry, 20L, 20L);
         MessageUtil.info("ChatLixiService initialized");
     }
 
     @Override
     public void shutdown() {
+        if (expiryTask != null) {
+            expiryTask.cancel();
+        }
+        if (poolTask != null) {
+            poolTask.cancel();
+        }
+        claimFeed.clear();
+        admission.clear();
+        // Open sessions stay in the journal and are restored or refunded on the next start
+        if (journal != null) {
+            journal.shutdown();
+        }
         activeSessions.clear();
     }
 
-    public boolean createSession(Player creator, double amount, int limit, LixiCurrency currencyType) {
+    /**
+     * Restores sessions left open by the last run. Every share index up to the highest journaled claim
+     * counts as taken, since indexes are handed out in order; expired sessions are refunded. Sessions that
+     * were still queued go back through admission in their original order and get a full expiry once open.
+     */
+    private void replayJournal() {
+        List<SessionJournal.JournaledSession> journaled;
+        try {
+            journaled = journal.load();
+        } catch (SQLException e) {
+            MessageUtil.error("Failed to read the chat session journal; open sessions were not restored");
+            e.printStackTrace();
+            return;
+        }
+        if (journaled.isEmpty()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        List<ChatLixiSession> queued = new ArrayList<>();
+        Map<RefundKey, Long> refunds = new HashMap<>();
+        for (SessionJournal.JournaledSession entry : journaled) {
+            int taken = entry.claims().keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+            ChatLixiSession session = new ChatLixiSession(entry.sessionId(), entry.creator(), entry.creatorName(),
+                    entry.amount(), entry.shares(), entry.currency(), entry.createdAt(), Math.min(taken, entry.shares().length));
+            session.nextShare.set(Math.min(taken, entry.shares().length));
+            entry.claims().forEach((index, claimer) -> session.claimedBy.put(claimer, index));
+
+            if (entry.queued()) {
+                queued.add(session);
+                continue;
+            }
+            if (entry.expiresAt() > now && taken < entry.shares().length) {
+                admission.restore(session.creatorUuid);
+                activeSessions.put(session.sessionId, session);
+                expiryWheel.schedule(session.sessionId, (entry.expiresAt() - now + 999) / 1000);
+                restored++;
+                continue;
+            }
+            refundRemaining(session, refunds);
+        }
+
+        // Open sessions hold their slots first, so queued ones only take what is left
+        int requeued = 0;
+        for (ChatLixiSession session : queued) {
+            switch (admission.offer(session, null, limits())) {
+                case ADMIT -> activate(session, null);
+                case QUEUE -> requeued++;
+                case REJECT -> refundRemaining(session, refunds);
+            }
+        }
+        refund(refunds);
+        MessageUtil.info("Chat session journal: restored " + restored + " open and " + queued.size() + " queued sessions ("
+                + requeued + " still waiting), refunded " + (journaled.size() - restored - queued.size()) + " expired sessions");
+    }
+
+    private void refundRemaining(ChatLixiSession session, Map<RefundKey, Long> refunds) {
+        long remaining = session.drain();
+        if (remaining > 0) {
+            recordLedger(LedgerType.EXPIRY, session.creatorUuid, null, remaining, session.currencyType, session.sessionId);
+            refunds.merge(new RefundKey(session.creatorUuid, session.currencyType), remaining, Long::sum);
+        }
+        journal.sessionClosed(session.sessionId);
+    }
+
+    /** Validates amount, slots and balance against the chat-lixi limits and withdraws the amount. Null if refused. */
+    private EconomyProvider reserve(Player creator, long amount, int limit, LixiCurrency currencyType) {
         EconomyProvider provider = plugin.getEconomyProvider(currencyType);
         if (provider == null || !provider.isAvailable()) {
             MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-            MessageUtil.send(creator, messages.withPrefix(currencyType == LixiCurrency.POINTS
-                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()));
-            return false;
+            MessageUtil.send(creator, messages.template(currencyType == LixiCurrency.POINTS
+                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()).render());
+            return null;
         }
 
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
         MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
 
-        double minAmount = currencyType == LixiCurrency.POINTS ? config.getMinPoints() : config.getMinAmount();
-        double maxAmount = currencyType == LixiCurrency.POINTS ? config.getMaxPoints() : config.getMaxAmount();
+        long minAmount = MoneyUtil.toMinor(currencyType == LixiCurrency.POINTS ? config.getMinPoints() : config.getMinAmount());
+        long maxAmount = MoneyUtil.toMinor(currencyType == LixiCurrency.POINTS ? config.getMaxPoints() : config.getMaxAmount());
 
         if (amount < minAmount) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getAmountTooLow())
-                    .replace("%min%", provider.format(minAmount)));
-            return false;
+            MessageUtil.send(creator, messages.template(messages.getAmountTooLow())
+                    .render(MessageSlot.MIN, provider.format(MoneyUtil.toMajor(minAmount))));
+            return null;
         }
         if (amount > maxAmount) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getAmountTooHigh())
-                    .replace("%max%", provider.format(maxAmount)));
-            return false;
+            MessageUtil.send(creator, messages.template(messages.getAmountTooHigh())
+                    .render(MessageSlot.MAX, provider.format(MoneyUtil.toMajor(maxAmount))));
+            return null;
         }
 
         if (limit < config.getMinLimit()) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getLimitTooLow())
-                    .replace("%min%", String.valueOf(config.getMinLimit())));
-            return false;
+            MessageUtil.send(creator, messages.template(messages.getLimitTooLow())
+                    .render(MessageSlot.MIN, String.valueOf(config.getMinLimit())));
+            return null;
         }
         if (limit > config.getMaxLimit()) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getLimitTooHigh())
-                    .replace("%max%", String.valueOf(config.getMaxLimit())));
-            return false;
+            MessageUtil.send(creator, messages.template(messages.getLimitTooHigh())
+                    .render(MessageSlot.MAX, String.valueOf(config.getMaxLimit())));
+            return null;
+        }
+
+        if (amount < minimumSplit(limit, currencyType)) {
+            MessageUtil.send(creator, messages.template(messages.getRainTooSmall())
+                    .render(MessageSlot.COUNT, String.valueOf(limit)));
+            return null;
         }
 
-        double balance = provider.getBalance(creator);
+        long balance = MoneyUtil.toMinor(provider.getBalance(creator));
         if (balance < amount) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getInsufficientBalance())
-                    .replace("%required%", provider.format(amount))
-                    .replace("%balance%", provider.format(balance)));
-            return false;
+            MessageUtil.send(creator, messages.template(messages.getInsufficientBalance())
+                    .render(MessageSlot.REQUIRED, provider.format(MoneyUtil.toMajor(amount)),
+                            MessageSlot.BALANCE, provider.format(MoneyUtil.toMajor(balance))));
+            return null;
         }
 
-        if (!provider.withdraw(creator, amount)) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getGenericError()));
+        if (!provider.withdraw(creator, MoneyUtil.toMajor(amount))) {
+            MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+            return null;
+        }
+        return provider;
+    }
+
+    public boolean createSession(Player creator, long amount, int limit, LixiCurrency currencyType) {
+        if (!allowed(creator, RateLimitAction.CREATE)) {
+            return false;
+        }
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        // Refuse before any money moves; the decision below is the authoritative one
+        if (admission.isFull(creator.getUniqueId(), limits())) {
+            MessageUtil.send(creator, messages.template(messages.getChatLixiQueueFull()).render());
+            return false;
+        }
+        EconomyProvider provider = reserve(creator, amount, limit, currencyType);
+        if (provider == null) {
             return false;
         }
 
@@ -87,114 +235,526 @@ public class ChatLixiService implements IService {
                 creator.getUniqueId(),
                 creator.getName(),
                 amount,
-                limit,
-                currencyType
+                splitShares(amount, limit, currencyType),
+                currencyType,
+                System.currentTimeMillis(),
+                0
         );
-        activeSessions.put(sessionId, session);
-
-        String broadcast = messages.withPrefix(messages.getChatLixiBroadcast())
-                .replace("%player%", creator.getName())
-                .replace("%amount%", provider.format(amount))
-                .replace("%limit%", String.valueOf(limit))
-                .replace("%session_id%", sessionId.toString());
-        MessageUtil.broadcast(broadcast);
+        Location origin = creator.getLocation();
+        SessionAdmission.Decision decision = admission.offer(session, origin, limits());
+        if (decision == SessionAdmission.Decision.REJECT) {
+            provider.deposit(creator, MoneyUtil.toMajor(amount));
+            MessageUtil.send(creator, messages.template(messages.getChatLixiQueueFull()).render());
+            return false;
+        }
+        // Queued sessions are journaled too, so a restart requeues or refunds them with the rest
+        if (journal != null) {
+            journal.sessionCreated(sessionId, session.creatorUuid, session.creatorName, amount, session.currencyType,
+                    session.shares, session.createdAt);
+        }
+        recordLedger(LedgerType.CREATE, creator.getUniqueId(), null, amount, currencyType, sessionId);
 
-        plugin.getFoliaLib().getScheduler().runLater(() -> expireSession(sessionId), config.getExpirySeconds() * 20L);
+        if (decision == SessionAdmission.Decision.ADMIT) {
+            activate(session, origin);
+        } else {
+            MessageUtil.send(creator, messages.template(messages.getChatLixiQueued())
+                    .render(MessageSlot.COUNT, String.valueOf(admission.getQueued())));
+        }
         return true;
     }
 
+    /** Opens an admitted session for claims: announces it and starts its expiry clock. */
+    private void activate(ChatLixiSession session, Location origin) {
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+        if (journal != null) {
+            journal.sessionActivated(session.sessionId, System.currentTimeMillis() + config.getExpirySeconds() * 1000L);
+        }
+        activeSessions.put(session.sessionId, session);
+        expiryWheel.schedule(session.sessionId, config.getExpirySeconds());
+
+        EconomyProvider provider = plugin.getEconomyProvider(session.currencyType);
+        broadcast(messages.template(messages.getChatLixiBroadcast())
+                .render(MessageSlot.PLAYER, session.creatorName,
+                        MessageSlot.AMOUNT, formatAmount(provider, session.totalAmount),
+                        MessageSlot.LIMIT, String.valueOf(session.shares.length),
+                        MessageSlot.SESSION_ID, session.sessionId.toString()), origin);
+    }
+
+    /** Open sessions, counted by the admission controller. */
+    public int getActiveCount() {
+        return admission.getActive();
+    }
+
+    /** Sessions waiting for a free slot, in the order they will open. */
+    public List<QueuedSession> getQueue() {
+        return admission.snapshot().stream()
+                .map(pending -> new QueuedSession(pending.session().creatorName, pending.session().totalAmount,
+                        pending.session().currencyType, pending.session().shares.length, pending.queuedAt()))
+                .toList();
+    }
+
+    private SessionAdmission.Limits limits() {
+        MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+        return new SessionAdmission.Limits(config.getMaxActiveSessions(), config.getMaxActivePerCreator(),
+                config.getMaxQueuedSessions(), config.getMaxQueuedPerCreator());
+    }
+
     public void claimSession(Player claimer, UUID sessionId) {
+        if (!allowed(claimer, RateLimitAction.CLAIM)) {
+            return;
+        }
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
 
         ChatLixiSession session = activeSessions.get(sessionId);
         if (session == null) {
-            MessageUtil.send(claimer, messages.withPrefix(messages.getChatLixiExpired()));
+            if (poolStore != null) {
+                claimPool(claimer, sessionId);
+            } else {
+                MessageUtil.send(claimer, messages.template(messages.getChatLixiExpired()).render());
+            }
             return;
         }
-        if (session.claimedBy.contains(claimer.getUniqueId())) {
-            MessageUtil.send(claimer, messages.withPrefix(messages.getChatLixiAlreadyClaimed()));
+        EconomyProvider provider = plugin.getEconomyProvider(session.currencyType);
+        if (provider == null || !provider.isAvailable()) {
+            MessageUtil.send(claimer, messages.template(messages.getGenericError()).render());
+            return;
+        }
+        // One atomic increment hands out a share; indexes past the end mean the session is drained.
+        // computeIfAbsent holds the claimer's key while it runs, so a double click can't take two shares,
+        // and a claimer who got no share is not recorded.
+        int[] taken = {-1};
+        Integer share = session.claimedBy.computeIfAbsent(claimer.getUniqueId(), id -> {
+            int next = session.nextShare.getAndIncrement();
+            if (next >= session.shares.length) {
+                return null;
+            }
+            taken[0] = next;
+            return next;
+        });
+        if (share == null) {
+            MessageUtil.send(claimer, messages.template(messages.getChatLixiNoSlots()).render());
             return;
         }
-        if (session.remainingSlots <= 0) {
-            MessageUtil.send(claimer, messages.withPrefix(messages.getChatLixiNoSlots()));
+        if (taken[0] < 0) {
+            MessageUtil.send(claimer, messages.template(messages.getChatLixiAlreadyClaimed()).render());
             return;
         }
-        // Double Average: last gets remainder; else random in (0.01, 2*avg)
-        double claimAmount;
-        if (session.remainingSlots == 1) {
-            claimAmount = session.remainingAmount;
+        int index = share;
+        long claimAmount = session.shares[index];
+        if (index == session.shares.length - 1) {
+            // Nothing is left to refund; the session closes once its last share is paid
+            expiryWheel.cancel(sessionId);
+        }
+        // Paid only once the claim is journaled, so a crash can't refund or re-issue a share already deposited
+        CompletableFuture<Void> journaled = journal != null
+                ? journal.shareClaimed(sessionId, index, claimer.getUniqueId())
+                : CompletableFuture.completedFuture(null);
+        journaled.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                // The share is taken either way; paying it beats leaving it with nobody
+                MessageUtil.error("Claim of " + MoneyUtil.formatMoney(claimAmount) + " by " + claimer.getName()
+                        + " (session " + sessionId + ") is not journaled, paying anyway: " + ex);
+            }
+            plugin.getFoliaLib().getScheduler().runAtEntity(claimer, task -> paySessionShare(claimer, session, claimAmount))
+                    .thenAccept(result -> {
+                        // The claimer left before their region thread ran; the share is theirs, so pay it anyway
+                        if (result != EntityTaskResult.SUCCESS) {
+                            paySessionShare(claimer, session, claimAmount);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Deposits a journaled share and counts it. The payment that completes the count closes the session
+     * and its journal rows, so they outlive every share still being paid.
+     */
+    private void paySessionShare(Player claimer, ChatLixiSession session, long claimAmount) {
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        UUID sessionId = session.sessionId;
+        EconomyProvider provider = plugin.getEconomyProvider(session.currencyType);
+        boolean paid = provider != null && provider.isAvailable();
+        if (!paid) {
+            MessageUtil.error("Could not pay chat lixi share of " + MoneyUtil.formatMoney(claimAmount) + " "
+                    + session.currencyType + " to " + claimer.getName() + " (session " + sessionId + "), it is owed to the player");
         } else {
-            double maxAmount = (session.remainingAmount / session.remainingSlots) * 2;
-            claimAmount = ThreadLocalRandom.current().nextDouble(0.01, Math.max(0.02, maxAmount));
-            claimAmount = Math.min(claimAmount, session.remainingAmount);
+            provider.deposit(claimer, MoneyUtil.toMajor(claimAmount));
+            recordLedger(LedgerType.CLAIM, claimer.getUniqueId(), session.creatorUuid, claimAmount, session.currencyType, sessionId);
+        }
+        long now = System.currentTimeMillis();
+        long claims = session.stats.recordClaim(claimer.getUniqueId(), claimer.getName(), claimAmount, now);
+        statsWindow.recordClaim(claimAmount, now);
+        MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+        if (config.isClaimFeed()) {
+            claimFeed.record(sessionId, session.creatorName, session.currencyType, claimer.getName(), claimAmount,
+                    (config.getClaimFeedWindowMs() + 49) / 50);
         }
 
-        session.remainingAmount -= claimAmount;
-        session.remainingSlots--;
-        session.claimedBy.add(claimer.getUniqueId());
+        if (paid && claimer.isOnline()) {
+            MessageUtil.send(claimer, messages.template(messages.getChatLixiClaimSuccess())
+                    .render(MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(claimAmount))));
+            EffectUtil.playLixiEffect(claimer);
+        }
+        // The claim that completes the count closes the session, unless expiry got there first
+        if (claims == session.shares.length && activeSessions.remove(sessionId, session)) {
+            if (journal != null) {
+                journal.sessionClosed(sessionId);
+            }
+            closeSession(session, true);
+        }
+    }
 
-        EconomyProvider provider = plugin.getEconomyProvider(session.currencyType);
+    /**
+     * Creates a network-wide pool: shares are split here, withdrawn up front and inserted as rows that
+     * any server sharing the database can claim. Other servers announce it on their next poll.
+     */
+    public boolean createPool(Player creator, long amount, int limit, LixiCurrency currencyType) {
+        if (!allowed(creator, RateLimitAction.CREATE)) {
+            return false;
+        }
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        if (poolStore == null) {
+            MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+            return false;
+        }
+        EconomyProvider provider = reserve(creator, amount, limit, currencyType);
+        if (provider == null) {
+            return false;
+        }
+        MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+
+        UUID poolId = UUID.randomUUID();
+        UUID creatorId = creator.getUniqueId();
+        long now = System.currentTimeMillis();
+        long expiresAt = now + config.getExpirySeconds() * 1000L;
+        announcedPools.put(poolId, expiresAt);
+        recordLedger(LedgerType.CREATE, creatorId, null, amount, currencyType, poolId);
+        poolStore.create(poolId, creatorId, creator.getName(), amount, currencyType,
+                splitShares(amount, limit, currencyType), now, expiresAt
+        ).whenComplete((created, ex) -> {
+            if (ex != null) {
+                // The shares may be live; refunding now could pay the total twice. If the pool landed,
+                // the next poll announces it and expiry settles it as usual
+                MessageUtil.error("Could not confirm lixi pool " + poolId + " by " + creator.getName() + " ("
+                        + MoneyUtil.formatMoney(amount) + " withdrawn): " + ex);
+                announcedPools.remove(poolId);
+                MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+                return;
+            }
+            if (!created) {
+                MessageUtil.error("Lixi pool " + poolId + " rolled back, refunding " + creator.getName());
+                announcedPools.remove(poolId);
+                provider.deposit(creator, MoneyUtil.toMajor(amount));
+                recordLedger(LedgerType.REFUND, creatorId, null, amount, currencyType, poolId);
+                MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+                return;
+            }
+            broadcast(messages.template(messages.getChatLixiBroadcast())
+                    .render(MessageSlot.PLAYER, creator.getName(),
+                            MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(amount)),
+                            MessageSlot.LIMIT, String.valueOf(limit),
+                            MessageSlot.SESSION_ID, poolId.toString()), null);
+        });
+        return true;
+    }
+
+    private void claimPool(Player claimer, UUID poolId) {
+        poolStore.claim(poolId, claimer.getUniqueId()).whenComplete((result, ex) ->
+                plugin.getFoliaLib().getScheduler().runAtEntity(claimer, task -> {
+                    MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+                    if (ex != null) {
+                        MessageUtil.warn("Pool claim failed for " + claimer.getName() + " (pool " + poolId + "): " + ex);
+                        MessageUtil.send(claimer, messages.template(messages.getGenericError()).render());
+                        return;
+                    }
+                    switch (result.status()) {
+                        case ALREADY_CLAIMED -> MessageUtil.send(claimer, messages.template(messages.getChatLixiAlreadyClaimed()).render());
+                        case EMPTY -> MessageUtil.send(claimer, messages.template(messages.getChatLixiNoSlots()).render());
+                        case EXPIRED -> MessageUtil.send(claimer, messages.template(messages.getChatLixiExpired()).render());
+                        case CLAIMED -> {
+                            EconomyProvider provider = payPoolShare(claimer, poolId, result);
+                            if (provider == null) {
+                                MessageUtil.send(claimer, messages.template(messages.getGenericError()).render());
+                                return;
+                            }
+                            MessageUtil.send(claimer, messages.template(messages.getChatLixiClaimSuccess())
+                                    .render(MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(result.amount()))));
+                            EffectUtil.playLixiEffect(claimer);
+                        }
+                    }
+                }).thenAccept(taskResult -> {
+                    // The claimer left before their region thread ran; the share is already theirs, so pay it anyway
+                    if (taskResult != EntityTaskResult.SUCCESS && ex == null && result.status() == PoolStore.PoolClaimStatus.CLAIMED) {
+                        payPoolShare(claimer, poolId, result);
+                    }
+                }));
+    }
+
+    /**
+     * Deposits a claimed share. If the currency is unavailable the share goes back into the pool for someone
+     * else; returns the provider when paid, null otherwise.
+     */
+    private EconomyProvider payPoolShare(OfflinePlayer claimer, UUID poolId, PoolStore.PoolClaim share) {
+        EconomyProvider provider = plugin.getEconomyProvider(share.currency());
         if (provider == null || !provider.isAvailable()) {
-            MessageUtil.send(claimer, messages.withPrefix(messages.getGenericError()));
-            return;
+            String what = "pool share of " + MoneyUtil.formatMoney(share.amount()) + " " + share.currency()
+                    + " for " + claimer.getName() + " (pool " + poolId + ")";
+            poolStore.release(poolId, claimer.getUniqueId()).whenComplete((released, ex) -> {
+                if (ex == null && released) {
+                    MessageUtil.warn("Returned " + what + " to the pool: " + share.currency() + " is unavailable");
+                } else {
+                    MessageUtil.error("Could not pay or return " + what + ", it is owed to the player: "
+                            + (ex != null ? ex : "pool already settled"));
+                }
+            });
+            return null;
         }
-        provider.deposit(claimer, claimAmount);
+        provider.deposit(claimer, MoneyUtil.toMajor(share.amount()));
+        recordLedger(LedgerType.CLAIM, claimer.getUniqueId(), share.creator(), share.amount(), share.currency(), poolId);
+        return provider;
+    }
 
-        MessageUtil.send(claimer, messages.withPrefix(messages.getChatLixiClaimSuccess())
-                .replace("%amount%", provider.format(claimAmount)));
-        plugin.getFoliaLib().getScheduler().runAtEntity(claimer, task -> {
-            EffectUtil.playLixiEffect(claimer);
+    /** Refunds pools that expired anywhere on the network and announces pools created on other servers. */
+    private void pollPools() {
+        MainConfig.PoolConfig poolConfig = plugin.getConfigManager().getConfig(MainConfig.class).getPool();
+        long cutoff = System.currentTimeMillis() - poolConfig.getSettleGraceSeconds() * 1000L;
+        poolStore.settleExpired(cutoff).thenAccept(settlements -> {
+            Map<RefundKey, Long> refunds = new HashMap<>();
+            for (PoolStore.Settlement settlement : settlements) {
+                if (settlement.remaining() > 0) {
+                    recordLedger(LedgerType.EXPIRY, settlement.creator(), null, settlement.remaining(),
+                            settlement.currency(), settlement.poolId());
+                    refunds.merge(new RefundKey(settlement.creator(), settlement.currency()), settlement.remaining(), Long::sum);
+                }
+            }
+            if (!refunds.isEmpty()) {
+                plugin.getFoliaLib().getScheduler().runNextTick(task -> refund(refunds));
+            }
         });
-        if (session.remainingSlots == 0) {
-            activeSessions.remove(sessionId);
+
+        poolStore.listOpen().thenAccept(pools -> {
+            MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+            long now = System.currentTimeMillis();
+            announcedPools.values().removeIf(expiresAt -> expiresAt < now);
+            for (PoolStore.PoolInfo pool : pools) {
+                if (announcedPools.putIfAbsent(pool.poolId(), pool.expiresAt()) != null) {
+                    continue;
+                }
+                EconomyProvider provider = plugin.getEconomyProvider(pool.currency());
+                String amount = provider != null ? provider.format(MoneyUtil.toMajor(pool.amount())) : MoneyUtil.formatMoney(pool.amount());
+                broadcast(messages.template(messages.getChatLixiBroadcast())
+                        .render(MessageSlot.PLAYER, pool.creatorName(),
+                                MessageSlot.AMOUNT, amount,
+                                MessageSlot.LIMIT, String.valueOf(pool.slots()),
+                                MessageSlot.SESSION_ID, pool.poolId().toString()), null);
+            }
+        });
+    }
+
+    /** Expires every session that fell due this second, refunding once per creator and currency. */
+    private void tickExpiry() {
+        List<UUID> due = expiryWheel.advance();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<RefundKey, Long> refunds = new HashMap<>();
+        for (UUID sessionId : due) {
+            ChatLixiSession session = activeSessions.remove(sessionId);
+            if (session == null) {
+                continue;
+            }
+            if (journal != null) {
+                journal.sessionClosed(sessionId);
+            }
+            long remaining = session.drain();
+            closeSession(session, remaining <= 0);
+            if (remaining <= 0) {
+                continue;
+            }
+            recordLedger(LedgerType.EXPIRY, session.creatorUuid, null, remaining, session.currencyType, sessionId);
+            refunds.merge(new RefundKey(session.creatorUuid, session.currencyType), remaining, Long::sum);
         }
+        refund(refunds);
     }
 
-    private void expireSession(UUID sessionId) {
-        ChatLixiSession session = activeSessions.remove(sessionId);
-        if (session == null || session.remainingAmount <= 0) {
+    private void refund(Map<RefundKey, Long> refunds) {
+        if (refunds.isEmpty()) {
             return;
         }
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        refunds.forEach((key, amount) -> {
+            EconomyProvider provider = plugin.getEconomyProvider(key.currency());
+            if (provider == null || !provider.isAvailable()) {
+                MessageUtil.warn("Could not refund " + MoneyUtil.formatMoney(amount) + " " + key.currency()
+                        + " to " + key.creator() + ": economy unavailable");
+                return;
+            }
+            Player creator = plugin.getServer().getPlayer(key.creator());
+            if (creator != null && creator.isOnline()) {
+                provider.deposit(creator, MoneyUtil.toMajor(amount));
+                MessageUtil.send(creator, messages.template(messages.getChatLixiRefund())
+                        .render(MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(amount))));
+            } else {
+                provider.deposit(plugin.getServer().getOfflinePlayer(key.creator()), MoneyUtil.toMajor(amount));
+            }
+        });
+    }
 
-        EconomyProvider provider = plugin.getEconomyProvider(session.currencyType);
-        if (provider == null || !provider.isAvailable()) {
+    /**
+     * Double Average split in whole units (0.01 money, 1 point), computed once per session:
+     * each share is random in [1, 2*avg], capped so every later slot can still get one unit;
+     * the last share takes the remainder.
+     */
+    static long[] splitShares(long amount, int slots, LixiCurrency currencyType) {
+        if (amount < minimumSplit(slots, currencyType)) {
+            throw new IllegalArgumentException("Cannot split " + amount + " into " + slots + " shares");
+        }
+        long[] shares = new long[slots];
+        long unit = splitUnit(currencyType);
+        long remaining = amount;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < slots - 1; i++) {
+            int slotsLeft = slots - i;
+            long remainingUnits = remaining / unit;
+            long cap = Math.min(2 * remainingUnits / slotsLeft, remainingUnits - (slotsLeft - 1));
+            long units = cap < 1 ? Math.min(1L, remainingUnits) : random.nextLong(1, cap + 1);
+            shares[i] = units * unit;
+            remaining -= shares[i];
+        }
+        shares[slots - 1] = remaining;
+        return shares;
+    }
+
+    /** Smallest share: 0.01 money, or 1 whole point since PlayerPoints can't hold fractions. */
+    static long splitUnit(LixiCurrency currencyType) {
+        return currencyType == LixiCurrency.POINTS ? MoneyUtil.MINOR_PER_MAJOR : 1L;
+    }
+
+    /** Amount needed to give every one of {@code slots} shares at least one unit. */
+    static long minimumSplit(int slots, LixiCurrency currencyType) {
+        return MoneyUtil.multiply(splitUnit(currencyType), slots);
+    }
+
+    /** Server-wide totals over the last {@link StatsWindow#MINUTES} minutes. */
+    public StatsWindow.Snapshot getStats() {
+        return statsWindow.snapshot(System.currentTimeMillis());
+    }
+
+    /** Feeds the rolling window and broadcasts the session summary from the incremental aggregates. */
+    private void closeSession(ChatLixiSession session, boolean drained) {
+        claimFeed.flush(session.sessionId);
+        for (SessionAdmission.Pending pending : admission.release(session.creatorUuid, limits())) {
+            activate(pending.session(), pending.origin());
+        }
+        SessionStats stats = session.stats;
+        long drainMillis = drained ? stats.getDrainMillis() : -1;
+        statsWindow.recordSessionClosed(drainMillis, System.currentTimeMillis());
+
+        MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+        if (!config.isSummaryBroadcast() || stats.getClaims() == 0) {
             return;
         }
+        EconomyProvider provider = plugin.getEconomyProvider(session.currencyType);
+        SessionStats.Top top = stats.getLuckiest();
+        Map<MessageSlot, String> values = new EnumMap<>(MessageSlot.class);
+        values.put(MessageSlot.PLAYER, session.creatorName);
+        values.put(MessageSlot.COUNT, String.valueOf(stats.getClaims()));
+        values.put(MessageSlot.LIMIT, String.valueOf(session.shares.length));
+        values.put(MessageSlot.AMOUNT, formatAmount(provider, stats.getClaimedTotal()));
+        values.put(MessageSlot.LUCKIEST, top != null ? top.name() : "-");
+        values.put(MessageSlot.TOP_AMOUNT, top != null ? formatAmount(provider, top.amount()) : "-");
+        values.put(MessageSlot.DURATION, drainMillis >= 0 ? String.format("%.1fs", drainMillis / 1000.0) : "-");
+        values.put(MessageSlot.P50, formatAmount(provider, stats.percentile(50)));
+        values.put(MessageSlot.P90, formatAmount(provider, stats.percentile(90)));
+
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        broadcast(messages.template(messages.getChatLixiSummary()).render(values), null);
+    }
 
-        Player creator = plugin.getServer().getPlayer(session.creatorUuid);
-        if (creator != null && creator.isOnline()) {
-            provider.deposit(creator, session.remainingAmount);
-            MessageUtil.send(creator, messages.withPrefix(messages.getChatLixiRefund())
-                    .replace("%amount%", provider.format(session.remainingAmount)));
-        } else {
-            provider.deposit(plugin.getServer().getOfflinePlayer(session.creatorUuid), session.remainingAmount);
+    /** One line for a window of claims: the first few names, then a count of the rest. */
+    private void announceClaims(ClaimFeed.Batch batch) {
+        List<String> claimers = batch.claimers();
+        String names = String.join(", ", claimers.subList(0, Math.min(FEED_NAMES_SHOWN, claimers.size())));
+        if (claimers.size() > FEED_NAMES_SHOWN) {
+            names += " +" + (claimers.size() - FEED_NAMES_SHOWN);
         }
+        EconomyProvider provider = plugin.getEconomyProvider(batch.currency());
+        Map<MessageSlot, String> values = new EnumMap<>(MessageSlot.class);
+        values.put(MessageSlot.NAMES, names);
+        values.put(MessageSlot.COUNT, String.valueOf(claimers.size()));
+        values.put(MessageSlot.AMOUNT, formatAmount(provider, batch.total()));
+        values.put(MessageSlot.PLAYER, batch.creatorName());
+
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        broadcast(messages.template(messages.getChatLixiClaimFeed()).render(values), null);
     }
 
-    private static class ChatLixiSession {
+    /** Sends to the configured chat lixi audience; the radius filter applies only when a center is given. */
+    private void broadcast(Component message, Location center) {
+        MainConfig.BroadcastConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getBroadcast();
+        broadcasts.broadcast(message, BroadcastAudience.fromConfig(config, center));
+    }
+
+    private static String formatAmount(EconomyProvider provider, long amount) {
+        return provider != null ? provider.format(MoneyUtil.toMajor(amount)) : MoneyUtil.formatMoney(amount);
+    }
+
+    private boolean allowed(Player player, RateLimitAction action) {
+        RateLimiter limiter = plugin.getService(RateLimiter.class);
+        return limiter == null || limiter.tryAcquire(player, action);
+    }
+
+    private void recordLedger(LedgerType type, UUID actor, UUID target, long amount, LixiCurrency currency, UUID reference) {
+        LedgerService ledger = plugin.getService(LedgerService.class);
+        if (ledger != null) {
+            ledger.record(type, actor, target, amount, currency, reference);
+        }
+    }
+
+    private record RefundKey(UUID creator, LixiCurrency currency) {
+    }
+
+    /** @param amount total in minor units */
+    public record QueuedSession(String creatorName, long amount, LixiCurrency currency, int slots, long queuedAt) {
+    }
+
+    static class ChatLixiSession {
         final UUID sessionId;
         final UUID creatorUuid;
         final String creatorName;
-        final double totalAmount;
-        final int totalSlots;
+        final long totalAmount;
         final LixiCurrency currencyType;
-        double remainingAmount;
-        int remainingSlots;
-        final Set<UUID> claimedBy;
+        /** Pre-split payouts; shares[i] goes to whoever takes index i from nextShare. */
+        final long[] shares;
+        final AtomicInteger nextShare = new AtomicInteger();
+        /** Claimer to the share index they took. */
+        final Map<UUID, Integer> claimedBy;
         final long createdAt;
+        final SessionStats stats;
 
-        ChatLixiSession(UUID sessionId, UUID creatorUuid, String creatorName, double amount, int slots, LixiCurrency currencyType) {
+        ChatLixiSession(UUID sessionId, UUID creatorUuid, String creatorName, long amount, long[] shares,
+                        LixiCurrency currencyType, long createdAt, long priorClaims) {
             this.sessionId = sessionId;
             this.creatorUuid = creatorUuid;
             this.creatorName = creatorName;
             this.totalAmount = amount;
-            this.totalSlots = slots;
+            this.shares = shares;
             this.currencyType = currencyType != null ? currencyType : LixiCurrency.VAULT;
-            this.remainingAmount = amount;
-            this.remainingSlots = slots;
-            this.claimedBy = ConcurrentHashMap.newKeySet();
-            this.createdAt = System.currentTimeMillis();
+            this.claimedBy = new ConcurrentHashMap<>();
+            this.createdAt = createdAt;
+            this.stats = new SessionStats(createdAt, priorClaims);
+        }
+
+        /** Closes the session to further claims and returns the total of the shares nobody took. */
+        long drain() {
+            int taken = nextShare.getAndSet(shares.length);
+            long remaining = 0;
+            for (int i = taken; i < shares.length; i++) {
+                remaining += shares[i];
+            }
+            return remaining;
         }
     }
 }
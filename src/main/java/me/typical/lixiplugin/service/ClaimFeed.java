@@ -0,0 +1,101 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.LXPlugin;
+import me.typical.lixiplugin.economy.LixiCurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Buffers "X claimed Y" announcements per chat lixi session. The first claim in a window schedules one
+ * flush; every claim until then joins the same batch, so a burst becomes one broadcast line per window.
+ */
+final class ClaimFeed {
+
+    private final LXPlugin plugin = LXPlugin.getInstance();
+    private final Map<UUID, Window> windows = new ConcurrentHashMap<>();
+    private final Consumer<Batch> sink;
+
+    ClaimFeed(Consumer<Batch> sink) {
+        this.sink = sink;
+    }
+
+    void record(UUID sessionId, String creatorName, LixiCurrency currency, String claimerName, long amount, long windowTicks) {
+        while (true) {
+            Window window = windows.get(sessionId);
+            if (window == null) {
+                Window created = new Window(creatorName, currency);
+                window = windows.putIfAbsent(sessionId, created);
+                if (window == null) {
+                    window = created;
+                    Window scheduled = created;
+                    plugin.getFoliaLib().getScheduler().runLaterAsync(task -> flush(sessionId, scheduled), Math.max(1L, windowTicks));
+                }
+            }
+            if (window.add(claimerName, amount)) {
+                return;
+            }
+            // Lost a race with the flush; the next pass opens a new window
+            windows.remove(sessionId, window);
+        }
+    }
+
+    /** Emits the session's pending claims now, e.g. before its summary. */
+    void flush(UUID sessionId) {
+        Window window = windows.get(sessionId);
+        if (window != null) {
+            flush(sessionId, window);
+        }
+    }
+
+    void clear() {
+        windows.clear();
+    }
+
+    private void flush(UUID sessionId, Window window) {
+        windows.remove(sessionId, window);
+        Batch batch = window.close();
+        if (batch != null) {
+            sink.accept(batch);
+        }
+    }
+
+    private static final class Window {
+        private final String creatorName;
+        private final LixiCurrency currency;
+        private final List<String> claimers = new ArrayList<>();
+        private long total;
+        private boolean closed;
+
+        Window(String creatorName, LixiCurrency currency) {
+            this.creatorName = creatorName;
+            this.currency = currency;
+        }
+
+        synchronized boolean add(String claimerName, long amount) {
+            if (closed) {
+                return false;
+            }
+            claimers.add(claimerName);
+            total += amount;
+            return true;
+        }
+
+        /** Null if already flushed or empty. */
+        synchronized Batch close() {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            return claimers.isEmpty() ? null : new Batch(creatorName, currency, List.copyOf(claimers), total);
+        }
+    }
+
+    /** @param total claimed in this window, in minor units */
+    record Batch(String creatorName, LixiCurrency currency, List<String> claimers, long total) {
+    }
+}
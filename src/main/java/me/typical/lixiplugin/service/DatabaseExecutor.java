@@ -0,0 +1,102 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.util.MessageUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for blocking JDBC work, kept off ForkJoinPool.commonPool().
+ * Worker count matches the connection pool; when the queue is full new work is rejected
+ * instead of piling up. Reads fail with a TimeoutException after the configured timeout; writes have
+ * no timeout, because a timed-out future cannot stop JDBC work that may still commit.
+ */
+public class DatabaseExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public DatabaseExecutor(int workers, int queueCapacity, long timeoutMs, boolean virtualThreads) {
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(
+                workers, workers,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                threadFactory(virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        MessageUtil.info("Database executor: " + workers + " " + (virtualThreads ? "virtual" : "platform")
+                + " workers, queue capacity " + queueCapacity + ", timeout " + timeoutMs + "ms");
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("LiXi-DB-", 0).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, "LiXi-DB-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** For reads and other work that is safe to abandon. */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return write(task).orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * For non-idempotent work (claims, inserts, deletes). The future completes only once the task has
+     * finished, so callers pay or refund from what the database actually did.
+     */
+    public <T> CompletableFuture<T> write(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            // Never started, so nothing was written
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /** Tasks waiting for a worker. */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /** Tasks refused because the queue was full. */
+    public int getRejectedCount() {
+        return rejected.get();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -6,51 +6,149 @@ import me.typical.lixiplugin.LXPlugin;
 import me.typical.lixiplugin.config.types.MainConfig;
 import me.typical.lixiplugin.economy.LixiCurrency;
 import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+import me.typical.lixiplugin.util.UuidUtil;
 
 import java.io.File;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** HikariCP database (SQLite/MariaDB). */
 public class DatabaseManager implements IService {
 
+    /** Tables that held money as DOUBLE amount before schema migration 7. */
+    private static final List<String> MONEY_TABLES = List.of("envelopes", "envelopes_archive", "ledger");
+
     private HikariDataSource dataSource;
+    private HikariDataSource readDataSource;
+    private EnvelopeWriteQueue writeQueue;
+    private DatabaseExecutor executor;
+    private EnvelopeMigrator migrator;
+    private EnvelopeArchiver archiver;
+    private MoneyBackfill moneyBackfill;
+    private EnvelopeCache cache;
+    /** Inserts still sitting in the write queue; a claim for one of these waits for its row to land. */
+    private final Map<UUID, CompletableFuture<Void>> pendingInserts = new ConcurrentHashMap<>();
+    private boolean sqlite;
+    private boolean updateReturning;
+    private boolean skipLocked;
+    private File dataFolder;
+    /** True while rows are still being copied out of the pre-compact envelopes_legacy table. */
+    private volatile boolean legacyTablePresent;
+    /** Tables with rows MoneyBackfill may not have converted yet; reads fall back to their DOUBLE amount column. */
+    private final Set<String> legacyAmountTables = ConcurrentHashMap.newKeySet();
     private final LXPlugin plugin = LXPlugin.getInstance();
 
     @Override
     public void setup() {
-        MainConfig.DatabaseConfig dbConfig = plugin.getConfigManager()
-                .getConfig(MainConfig.class)
-                .getDatabase();
+        MainConfig mainConfig = plugin.getConfigManager().getConfig(MainConfig.class);
+        start(mainConfig.getDatabase(), mainConfig.getArchive(), plugin.getDataFolder());
+    }
 
+    /** Opens the pools and creates the tables. Needs no running server, so tests and benchmarks call it directly. */
+    void start(MainConfig.DatabaseConfig dbConfig, MainConfig.ArchiveConfig archiveConfig, File dataFolder) {
+        this.dataFolder = dataFolder;
         HikariConfig config = new HikariConfig();
 
-        if (dbConfig.getType().equalsIgnoreCase("MARIADB")) {
-            setupMariaDB(config, dbConfig);
+        sqlite = !dbConfig.getType().equalsIgnoreCase("MARIADB");
+        if (sqlite) {
+            setupSQLite(config, dbConfig);
         } else {
-            setupSQLite(config);
+            setupMariaDB(config, dbConfig);
         }
 
         dataSource = new HikariDataSource(config);
         MessageUtil.info("Database connection pool established");
         createTables();
+
+        // Readers open after the tables exist; WAL lets them run alongside the single writer
+        if (sqlite && dbConfig.isSqliteWalMode()) {
+            readDataSource = new HikariDataSource(createSQLiteReaderConfig(dbConfig));
+            MessageUtil.info("SQLite read-only pool established (" + readDataSource.getMaximumPoolSize() + " connections)");
+        }
+
+        int workers = dataSource.getMaximumPoolSize() + (readDataSource != null ? readDataSource.getMaximumPoolSize() : 0);
+        executor = new DatabaseExecutor(
+                workers,
+                dbConfig.getExecutorQueueCapacity(),
+                dbConfig.getOperationTimeoutMs(),
+                dbConfig.isVirtualThreads()
+        );
+        updateReturning = detectUpdateReturning();
+        MessageUtil.info("Envelope claims use " + (updateReturning ? "UPDATE ... RETURNING" : "transactional update + select"));
+        skipLocked = !sqlite && detectSkipLocked();
+        cache = new EnvelopeCache(dbConfig.getCacheMaxSize(), dbConfig.getCacheTtlSeconds());
+        writeQueue = new EnvelopeWriteQueue(this, dbConfig.getWriteBatchSize(), dbConfig.getWriteFlushIntervalMs());
+
+        if (legacyTablePresent) {
+            migrator = new EnvelopeMigrator(this, dbConfig.getMigrationChunkSize(), dbConfig.getMigrationChunkDelayMs());
+            migrator.start();
+        }
+
+        if (!legacyAmountTables.isEmpty()) {
+            // envelopes before envelopes_archive, so the archiver never copies an unconverted row into a finished table
+            List<String> tables = MONEY_TABLES.stream().filter(legacyAmountTables::contains).toList();
+            moneyBackfill = new MoneyBackfill(this, tables,
+                    dbConfig.getMigrationChunkSize(), dbConfig.getMigrationChunkDelayMs(), dbConfig.getOperationTimeoutMs());
+            moneyBackfill.start();
+        }
+
+        if (archiveConfig.isEnabled()) {
+            archiver = new EnvelopeArchiver(this, archiveConfig);
+            archiver.start();
+        }
     }
 
-    private void setupSQLite(HikariConfig config) {
-        File dbFile = new File(plugin.getDataFolder(), "lixi.db");
+    private File getSQLiteFile() {
+        return new File(dataFolder, "lixi.db");
+    }
+
+    private void setupSQLite(HikariConfig config, MainConfig.DatabaseConfig dbConfig) {
+        File dbFile = getSQLiteFile();
         config.setJdbcUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
         config.setDriverClassName("org.sqlite.JDBC");
         config.setMaximumPoolSize(1); // SQLite only supports one writer
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "250");
         config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Only takes effect on a new database file; lets the archiver hand freed pages back with incremental_vacuum
+        config.addDataSourceProperty("auto_vacuum", "INCREMENTAL");
+        if (dbConfig.isSqliteWalMode()) {
+            config.setPoolName("LiXi-SQLite-Writer");
+            applySQLitePragmas(config, dbConfig);
+            config.addDataSourceProperty("journal_mode", "WAL");
+        }
 
-        MessageUtil.info("Using SQLite database at: " + dbFile.getAbsolutePath());
+        MessageUtil.info("Using SQLite database at: " + dbFile.getAbsolutePath()
+                + (dbConfig.isSqliteWalMode() ? " (WAL mode)" : ""));
+    }
+
+    private HikariConfig createSQLiteReaderConfig(MainConfig.DatabaseConfig dbConfig) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("LiXi-SQLite-Reader");
+        config.setJdbcUrl("jdbc:sqlite:" + getSQLiteFile().getAbsolutePath());
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setMaximumPoolSize(Math.max(1, dbConfig.getSqliteReadPoolSize()));
+        config.setConnectionInitSql("PRAGMA query_only = ON");
+        applySQLitePragmas(config, dbConfig);
+        return config;
+    }
+
+    private void applySQLitePragmas(HikariConfig config, MainConfig.DatabaseConfig dbConfig) {
+        config.addDataSourceProperty("synchronous", dbConfig.getSqliteSynchronous());
+        config.addDataSourceProperty("busy_timeout", String.valueOf(dbConfig.getSqliteBusyTimeoutMs()));
     }
 
     private void setupMariaDB(HikariConfig config, MainConfig.DatabaseConfig dbConfig) {
@@ -73,40 +171,41 @@ public class DatabaseManager implements IService {
     }
 
     private void createTables() {
-        String createEnvelopesTable = """
-                CREATE TABLE IF NOT EXISTS envelopes (
-                    uuid VARCHAR(36) PRIMARY KEY,
-                    amount DOUBLE NOT NULL,
-                    creator_uuid VARCHAR(36) NOT NULL,
-                    status VARCHAR(10) NOT NULL DEFAULT 'UNUSED',
-                    currency_type VARCHAR(10) NOT NULL DEFAULT 'VAULT'
-                )
-                """;
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(createEnvelopesTable)) {
-            stmt.execute();
-            migrateAddCurrencyType(conn);
-            MessageUtil.info("Database tables created successfully");
+        try (Connection conn = dataSource.getConnection()) {
+            new SchemaMigrator(sqlite).migrate(conn);
+            legacyTablePresent = SchemaMigrator.tableExists(conn, "envelopes_legacy");
+            for (String table : MONEY_TABLES) {
+                if (SchemaMigrator.columnType(conn, table, "amount") != null) {
+                    legacyAmountTables.add(table);
+                }
+            }
+            MessageUtil.info("Database schema is at version " + SchemaMigrator.latestVersion());
         } catch (SQLException e) {
             MessageUtil.error("Failed to create database tables");
             e.printStackTrace();
         }
     }
 
-    private void migrateAddCurrencyType(Connection conn) {
-        try {
-            conn.prepareStatement("ALTER TABLE envelopes ADD COLUMN currency_type VARCHAR(10) NOT NULL DEFAULT 'VAULT'").executeUpdate();
-            MessageUtil.info("Database migrated: added currency_type column");
-        } catch (SQLException e) {
-            if (!e.getMessage().contains("duplicate column")) {
-                MessageUtil.warn("Migration note: " + e.getMessage());
-            }
-        }
-    }
-
     @Override
     public void shutdown() {
+        if (archiver != null) {
+            archiver.stop();
+        }
+        if (migrator != null) {
+            migrator.stop();
+        }
+        if (moneyBackfill != null) {
+            moneyBackfill.stop();
+        }
+        if (writeQueue != null) {
+            writeQueue.shutdown();
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (readDataSource != null && !readDataSource.isClosed()) {
+            readDataSource.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             MessageUtil.info("Database connection pool closed");
@@ -117,82 +216,432 @@ public class DatabaseManager implements IService {
         return dataSource.getConnection();
     }
 
-    public CompletableFuture<Void> insertEnvelope(UUID id, double amount, UUID creator, LixiCurrency currencyType) {
-        return CompletableFuture.runAsync(() -> {
-            String sql = "INSERT INTO envelopes (uuid, amount, creator_uuid, status, currency_type) VALUES (?, ?, ?, 'UNUSED', ?)";
-            try (Connection conn = getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, id.toString());
-                stmt.setDouble(2, amount);
-                stmt.setString(3, creator.toString());
-                stmt.setString(4, currencyType.name());
-                stmt.executeUpdate();
+    /** Connection for lookups. Uses the read-only pool in SQLite WAL mode, otherwise the main pool. */
+    public Connection getReadConnection() throws SQLException {
+        return readDataSource != null ? readDataSource.getConnection() : dataSource.getConnection();
+    }
+
+    /**
+     * Queues the envelope for the next batched write. The future fails with the SQLException
+     * if this envelope's row could not be written, so callers can refund.
+     */
+    public CompletableFuture<Void> insertEnvelope(UUID id, long amount, UUID creator, LixiCurrency currencyType) {
+        cache.put(id, new EnvelopeData(amount, creator, EnvelopeStatus.UNUSED, currencyType));
+        CompletableFuture<Void> future = writeQueue.enqueue(id, amount, creator, currencyType);
+        pendingInserts.put(id, future);
+        future.whenComplete((v, ex) -> {
+            pendingInserts.remove(id, future);
+            if (ex != null) {
+                // The row doesn't exist, so any click on the item should be rejected
+                cache.invalidate(id);
+                cache.markClaimed(id);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Writes a bulk mint in one transaction, bypassing the write-behind queue. Completes true once the rows are
+     * committed and false once the transaction is confirmed rolled back, the only case where a refund is safe.
+     * Fails when the outcome cannot be confirmed: the commit may have landed, so callers must neither refund
+     * nor hand out items.
+     */
+    public CompletableFuture<Boolean> insertEnvelopes(List<UUID> ids, long amount, UUID creator, LixiCurrency currencyType) {
+        EnvelopeData data = new EnvelopeData(amount, creator, EnvelopeStatus.UNUSED, currencyType);
+        ids.forEach(id -> cache.put(id, data));
+        CompletableFuture<Boolean> future = executor.write(() -> {
+            try {
+                writeEnvelopes(ids, amount, creator, currencyType);
+                return true;
             } catch (SQLException e) {
-                MessageUtil.error("Failed to insert envelope: " + id);
-                e.printStackTrace();
+                MessageUtil.error("Bulk envelope insert failed: " + e.getMessage());
+                // A commit that reported an error can still have landed; look before anyone refunds
+                try {
+                    int found = countEnvelopes(ids);
+                    if (found == 0 || found == ids.size()) {
+                        return found > 0;
+                    }
+                    throw new SQLException("Bulk mint only partly visible: " + found + "/" + ids.size() + " rows");
+                } catch (SQLException check) {
+                    check.addSuppressed(e);
+                    throw new CompletionException(check);
+                }
             }
         });
+        CompletableFuture<Void> settled = future.handle((written, ex) -> null);
+        ids.forEach(id -> pendingInserts.put(id, settled));
+        future.whenComplete((written, ex) -> {
+            for (UUID id : ids) {
+                pendingInserts.remove(id, settled);
+                if (ex != null) {
+                    // Unknown outcome: let the next lookup ask the database
+                    cache.invalidate(id);
+                } else if (!written) {
+                    cache.invalidate(id);
+                    cache.markClaimed(id);
+                }
+            }
+        });
+        return future;
+    }
+
+    private void writeEnvelopes(List<UUID> ids, long amount, UUID creator, LixiCurrency currencyType) throws SQLException {
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(EnvelopeWriteQueue.insertSql(this))) {
+                byte[] creatorBytes = UuidUtil.toBytes(creator);
+                for (UUID id : ids) {
+                    stmt.setBytes(1, UuidUtil.toBytes(id));
+                    int index = bindAmount(stmt, 2, amount);
+                    stmt.setBytes(index, creatorBytes);
+                    stmt.setInt(index + 1, EnvelopeStatus.UNUSED.getCode());
+                    stmt.setInt(index + 2, currencyCode(currencyType));
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private int countEnvelopes(List<UUID> ids) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM envelopes WHERE uuid IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (Connection conn = getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setBytes(i + 1, UuidUtil.toBytes(ids.get(i)));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    public int getPendingWrites() {
+        return writeQueue != null ? writeQueue.getPendingCount() : 0;
+    }
+
+    /** Operations waiting for a database worker. */
+    public int getQueueDepth() {
+        return executor != null ? executor.getQueueDepth() : 0;
+    }
+
+    public DatabaseExecutor getExecutor() {
+        return executor;
+    }
+
+    public EnvelopeCache getCache() {
+        return cache;
+    }
+
+    public EnvelopeArchiver getArchiver() {
+        return archiver;
+    }
+
+    public boolean isSQLite() {
+        return sqlite;
+    }
+
+    /** "INSERT OR IGNORE" on SQLite, "INSERT IGNORE" on MariaDB. */
+    public String insertIgnore() {
+        return sqlite ? "INSERT OR IGNORE" : "INSERT IGNORE";
+    }
+
+    /**
+     * Money columns for an INSERT. SQLite keeps the pre-migration-7 DOUBLE amount column (NOT NULL, and it
+     * can't be given a default), so it is written alongside amount_minor there; MariaDB defaults it to 0
+     * until MoneyBackfill drops it.
+     */
+    public String amountColumns() {
+        return sqlite ? "amount_minor, amount" : "amount_minor";
+    }
+
+    /** Placeholders matching {@link #amountColumns()}. */
+    public String amountPlaceholders() {
+        return sqlite ? "?, ?" : "?";
+    }
+
+    /** Binds a minor amount for {@link #amountColumns()} and returns the next parameter index. */
+    public int bindAmount(PreparedStatement stmt, int index, long minor) throws SQLException {
+        stmt.setLong(index++, minor);
+        if (sqlite) {
+            stmt.setDouble(index++, MoneyUtil.toMajor(minor));
+        }
+        return index;
+    }
+
+    /** Money columns to select from a table; includes the old amount while rows may still be unconverted. */
+    public String amountSelect(String table) {
+        return legacyAmountTables.contains(table) ? "amount_minor, amount" : "amount_minor";
     }
 
-    /** Atomic claim via UPDATE WHERE status='UNUSED'. */
+    /** Reads an amount selected with {@link #amountSelect(String)}, converting rows the backfill hasn't reached. */
+    public static long readAmount(ResultSet rs) throws SQLException {
+        long minor = rs.getLong("amount_minor");
+        return rs.wasNull() ? MoneyUtil.toMinor(rs.getDouble("amount")) : minor;
+    }
+
+    /** Whether the old amount column is still present for reads. Always true on SQLite, which never drops it. */
+    public boolean hasAmountColumn(String table) {
+        return sqlite || legacyAmountTables.contains(table);
+    }
+
+    void onAmountBackfilled(String table) {
+        legacyAmountTables.remove(table);
+    }
+
+    /** Waits for the money backfill, including MariaDB column drops; for tests. */
+    void awaitMoneyBackfill(long timeoutMs) throws InterruptedException {
+        if (moneyBackfill != null) {
+            moneyBackfill.await(timeoutMs);
+        }
+    }
+
+    void onLegacyMigrationComplete() {
+        legacyTablePresent = false;
+        migrator = null;
+    }
+
+    public static int currencyCode(LixiCurrency currency) {
+        return currency == LixiCurrency.POINTS ? 1 : 0;
+    }
+
+    public static LixiCurrency currencyFromCode(int code) {
+        return code == 1 ? LixiCurrency.POINTS : LixiCurrency.VAULT;
+    }
+
+    /**
+     * Atomic claim via UPDATE WHERE status=UNUSED. Single statement when UPDATE ... RETURNING is available.
+     * Envelopes cached as claimed are rejected without a database round trip.
+     */
     public CompletableFuture<Optional<ClaimResult>> claimEnvelope(UUID id) {
-        return CompletableFuture.supplyAsync(() -> {
-            String updateSql = "UPDATE envelopes SET status = 'CLAIMED' WHERE uuid = ? AND status = 'UNUSED'";
-            String selectSql = "SELECT amount, currency_type FROM envelopes WHERE uuid = ?";
+        if (cache.isClaimed(id)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        CompletableFuture<Void> pendingInsert = pendingInserts.get(id);
+        if (pendingInsert != null) {
+            return pendingInsert.handle((v, ex) -> null).thenCompose(v -> claimFromDatabase(id));
+        }
+        return claimFromDatabase(id);
+    }
 
+    /** A database error fails the future; only a definite "no row updated" reads as already claimed. */
+    private CompletableFuture<Optional<ClaimResult>> claimFromDatabase(UUID id) {
+        return executor.write(() -> {
             try (Connection conn = getConnection()) {
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                    updateStmt.setString(1, id.toString());
-                    if (updateStmt.executeUpdate() == 0) {
-                        return Optional.empty();
+                // Legacy rows only ever move into the new table, so checking legacy first can't miss a row mid-copy
+                if (legacyTablePresent) {
+                    Optional<ClaimResult> legacy = withLegacyTable(() -> claimLegacy(conn, id));
+                    if (legacy.isPresent()) {
+                        cache.markClaimed(id);
+                        return legacy;
                     }
                 }
+                Optional<ClaimResult> result = updateReturning ? claimReturning(conn, id) : claimTransactional(conn, id);
+                // Either we just claimed it or it was already claimed / never existed; both are final
+                cache.markClaimed(id);
+                return result;
+            } catch (SQLException e) {
+                MessageUtil.error("Failed to claim envelope: " + id);
+                e.printStackTrace();
+                throw new CompletionException(e);
+            }
+        });
+    }
 
-                try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
-                    selectStmt.setString(1, id.toString());
-                    try (ResultSet rs = selectStmt.executeQuery()) {
-                        if (rs.next()) {
-                            double amount = rs.getDouble("amount");
-                            String currencyStr = "VAULT";
-                            try {
-                                currencyStr = rs.getString("currency_type");
-                            } catch (SQLException ignored) {
+    private Optional<ClaimResult> claimReturning(Connection conn, UUID id) throws SQLException {
+        String sql = "UPDATE envelopes SET status = ?, claimed_at = ? WHERE uuid = ? AND status = ? RETURNING " + amountSelect("envelopes") + ", currency_type";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, EnvelopeStatus.CLAIMED.getCode());
+            stmt.setLong(2, System.currentTimeMillis());
+            stmt.setBytes(3, UuidUtil.toBytes(id));
+            stmt.setInt(4, EnvelopeStatus.UNUSED.getCode());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? Optional.of(readClaimResult(rs)) : Optional.empty();
+            }
+        }
+    }
+
+    /** Fallback for backends without UPDATE ... RETURNING: update and read back inside one transaction. */
+    private Optional<ClaimResult> claimTransactional(Connection conn, UUID id) throws SQLException {
+        String updateSql = "UPDATE envelopes SET status = ?, claimed_at = ? WHERE uuid = ? AND status = ?";
+        String selectSql = "SELECT " + amountSelect("envelopes") + ", currency_type FROM envelopes WHERE uuid = ?";
+        byte[] key = UuidUtil.toBytes(id);
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            Optional<ClaimResult> result = Optional.empty();
+            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                updateStmt.setInt(1, EnvelopeStatus.CLAIMED.getCode());
+                updateStmt.setLong(2, System.currentTimeMillis());
+                updateStmt.setBytes(3, key);
+                updateStmt.setInt(4, EnvelopeStatus.UNUSED.getCode());
+                if (updateStmt.executeUpdate() > 0) {
+                    try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
+                        selectStmt.setBytes(1, key);
+                        try (ResultSet rs = selectStmt.executeQuery()) {
+                            if (rs.next()) {
+                                result = Optional.of(readClaimResult(rs));
                             }
-                            LixiCurrency currency = LixiCurrency.valueOf(currencyStr != null ? currencyStr : "VAULT");
-                            return Optional.of(new ClaimResult(amount, currency));
                         }
                     }
                 }
-            } catch (SQLException e) {
-                MessageUtil.error("Failed to claim envelope: " + id);
-                e.printStackTrace();
+            }
+            conn.commit();
+            return result;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Runs a legacy-table lookup that may race the migrator dropping the table. Once the table is gone every
+     * row is already in envelopes, so the caller falls through to it; any other failure is rethrown.
+     */
+    private <T> Optional<T> withLegacyTable(LegacyLookup<T> lookup) throws SQLException {
+        try {
+            return lookup.run();
+        } catch (SQLException e) {
+            if (legacyTablePresent) {
+                throw e;
             }
             return Optional.empty();
-        });
+        }
+    }
+
+    @FunctionalInterface
+    private interface LegacyLookup<T> {
+        Optional<T> run() throws SQLException;
     }
 
-    public record ClaimResult(double amount, LixiCurrency currency) {    }
+    private Optional<ClaimResult> claimLegacy(Connection conn, UUID id) throws SQLException {
+        String updateSql = "UPDATE envelopes_legacy SET status = 'CLAIMED' WHERE uuid = ? AND status = 'UNUSED'";
+        String selectSql = "SELECT amount, currency_type FROM envelopes_legacy WHERE uuid = ?";
 
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            Optional<ClaimResult> result = Optional.empty();
+            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                updateStmt.setString(1, id.toString());
+                if (updateStmt.executeUpdate() > 0) {
+                    try (PreparedStatement selectStmt = conn.prepareStatement(selectSql)) {
+                        selectStmt.setString(1, id.toString());
+                        try (ResultSet rs = selectStmt.executeQuery()) {
+                            if (rs.next()) {
+                                String currencyStr = rs.getString("currency_type");
+                                result = Optional.of(new ClaimResult(MoneyUtil.toMinor(rs.getDouble("amount")),
+                                        LixiCurrency.valueOf(currencyStr != null ? currencyStr : "VAULT")));
+                            }
+                        }
+                    }
+                }
+            }
+            conn.commit();
+            return result;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private ClaimResult readClaimResult(ResultSet rs) throws SQLException {
+        return new ClaimResult(readAmount(rs), currencyFromCode(rs.getInt("currency_type")));
+    }
+
+    /**
+     * SQLite supports UPDATE ... RETURNING since 3.35. MariaDB only supports RETURNING on
+     * INSERT/DELETE/REPLACE, so it always takes the transactional path.
+     */
+    private boolean detectUpdateReturning() {
+        try (Connection conn = getConnection()) {
+            DatabaseMetaData meta = conn.getMetaData();
+            if (!meta.getDatabaseProductName().toLowerCase().contains("sqlite")) {
+                return false;
+            }
+            String[] version = meta.getDatabaseProductVersion().split("\\.");
+            int major = Integer.parseInt(version[0]);
+            int minor = version.length > 1 ? Integer.parseInt(version[1]) : 0;
+            return major > 3 || (major == 3 && minor >= 35);
+        } catch (SQLException | NumberFormatException e) {
+            MessageUtil.warn("Could not detect UPDATE ... RETURNING support: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** MariaDB 10.6+ and MySQL 8 can skip rows locked by other transactions; older servers wait for them. */
+    private boolean detectSkipLocked() {
+        try (Connection conn = getConnection()) {
+            DatabaseMetaData meta = conn.getMetaData();
+            int major = meta.getDatabaseMajorVersion();
+            int minor = meta.getDatabaseMinorVersion();
+            boolean mariaDb = (meta.getDatabaseProductName() + meta.getDatabaseProductVersion()).toLowerCase().contains("mariadb");
+            return mariaDb ? major > 10 || (major == 10 && minor >= 6) : major >= 8;
+        } catch (SQLException e) {
+            MessageUtil.warn("Could not detect SKIP LOCKED support: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Whether row-locking reads may add SKIP LOCKED. Always false on SQLite, which has a single writer. */
+    public boolean supportsSkipLocked() {
+        return skipLocked;
+    }
+
+    /** Overrides the detected claim path so both can be measured against the same backend. */
+    void setUpdateReturning(boolean updateReturning) {
+        this.updateReturning = updateReturning;
+    }
+
+    /** @param amount claimed value in minor units */
+    public record ClaimResult(long amount, LixiCurrency currency) {    }
+
+    /** Reads through the envelope cache. */
     public CompletableFuture<Optional<EnvelopeData>> getEnvelope(UUID id) {
-        return CompletableFuture.supplyAsync(() -> {
-            String sql = "SELECT amount, creator_uuid, status, currency_type FROM envelopes WHERE uuid = ?";
-            try (Connection conn = getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, id.toString());
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        String currencyStr = "VAULT";
-                        try {
-                            currencyStr = rs.getString("currency_type");
-                        } catch (SQLException ignored) {
+        EnvelopeData cached = cache.getData(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(Optional.of(cached));
+        }
+        return loadEnvelope(id).thenApply(data -> {
+            data.ifPresent(d -> cache.put(id, d));
+            return data;
+        });
+    }
+
+    private CompletableFuture<Optional<EnvelopeData>> loadEnvelope(UUID id) {
+        return executor.supply(() -> {
+            String sql = "SELECT " + amountSelect("envelopes") + ", creator_uuid, status, currency_type FROM envelopes WHERE uuid = ?";
+            try (Connection conn = getReadConnection()) {
+                if (legacyTablePresent) {
+                    Optional<EnvelopeData> legacy = withLegacyTable(() -> getLegacyEnvelope(conn, id));
+                    if (legacy.isPresent()) {
+                        return legacy;
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setBytes(1, UuidUtil.toBytes(id));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            return Optional.of(new EnvelopeData(
+                                    readAmount(rs),
+                                    UuidUtil.fromBytes(rs.getBytes("creator_uuid")),
+                                    EnvelopeStatus.fromCode(rs.getInt("status")),
+                                    currencyFromCode(rs.getInt("currency_type"))
+                            ));
                         }
-                        LixiCurrency currency = LixiCurrency.valueOf(currencyStr != null ? currencyStr : "VAULT");
-                        return Optional.of(new EnvelopeData(
-                                rs.getDouble("amount"),
-                                UUID.fromString(rs.getString("creator_uuid")),
-                                rs.getString("status"),
-                                currency
-                        ));
                     }
                 }
             } catch (SQLException e) {
@@ -203,8 +652,28 @@ public class DatabaseManager implements IService {
         });
     }
 
-    public record EnvelopeData(double amount, UUID creator, String status, LixiCurrency currency) {
-        public EnvelopeData(double amount, UUID creator, String status) {
+    private Optional<EnvelopeData> getLegacyEnvelope(Connection conn, UUID id) throws SQLException {
+        String sql = "SELECT amount, creator_uuid, status, currency_type FROM envelopes_legacy WHERE uuid = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, id.toString());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    String currencyStr = rs.getString("currency_type");
+                    return Optional.of(new EnvelopeData(
+                            MoneyUtil.toMinor(rs.getDouble("amount")),
+                            UUID.fromString(rs.getString("creator_uuid")),
+                            EnvelopeStatus.valueOf(rs.getString("status")),
+                            LixiCurrency.valueOf(currencyStr != null ? currencyStr : "VAULT")
+                    ));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** @param amount envelope value in minor units */
+    public record EnvelopeData(long amount, UUID creator, EnvelopeStatus status, LixiCurrency currency) {
+        public EnvelopeData(long amount, UUID creator, EnvelopeStatus status) {
             this(amount, creator, status, LixiCurrency.VAULT);
         }
     }
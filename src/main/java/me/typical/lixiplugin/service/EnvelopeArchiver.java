@@ -0,0 +1,159 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.util.MessageUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically moves claimed envelopes older than the configured age into envelopes_archive,
+ * in small copy+delete transactions with a pause between chunks so live claims keep the connection.
+ * On SQLite, freed pages are returned with incremental_vacuum afterwards.
+ */
+public class EnvelopeArchiver {
+
+    private final DatabaseManager database;
+    private final MainConfig.ArchiveConfig config;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean running = true;
+    private volatile long lastRunMoved;
+    private boolean vacuumHintLogged;
+
+    public EnvelopeArchiver(DatabaseManager database, MainConfig.ArchiveConfig config) {
+        this.database = database;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LiXi-EnvelopeArchiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        long interval = Math.max(1L, config.getIntervalMinutes());
+        scheduler.scheduleWithFixedDelay(this::runOnce, interval, interval, TimeUnit.MINUTES);
+    }
+
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Rows moved by the most recent run. */
+    public long getLastRunMoved() {
+        return lastRunMoved;
+    }
+
+    /** One archive pass; scheduled every interval-minutes. */
+    void runOnce() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(config.getOlderThanDays());
+        int chunkSize = Math.max(1, config.getChunkSize());
+        long started = System.currentTimeMillis();
+        long moved = 0;
+        try {
+            while (running) {
+                int count = moveChunk(cutoff, chunkSize);
+                moved += count;
+                if (count < chunkSize) {
+                    break;
+                }
+                Thread.sleep(Math.max(0L, config.getChunkDelayMs()));
+            }
+            if (moved > 0 && database.isSQLite()) {
+                incrementalVacuum();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            MessageUtil.error("Envelope archiving failed after " + moved + " rows");
+            e.printStackTrace();
+        }
+        lastRunMoved = moved;
+        if (moved > 0) {
+            MessageUtil.info("Archived " + moved + " claimed envelopes in " + (System.currentTimeMillis() - started) + "ms");
+        }
+    }
+
+    private int moveChunk(long cutoff, int chunkSize) throws SQLException {
+        String selectSql = "SELECT uuid FROM envelopes WHERE claimed_at IS NOT NULL AND claimed_at < ? ORDER BY claimed_at LIMIT ?"
+                + (database.isSQLite() ? "" : " FOR UPDATE");
+
+        try (Connection conn = database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                List<byte[]> ids = new ArrayList<>(chunkSize);
+                try (PreparedStatement select = conn.prepareStatement(selectSql)) {
+                    select.setLong(1, cutoff);
+                    select.setInt(2, chunkSize);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getBytes("uuid"));
+                        }
+                    }
+                }
+                if (ids.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+
+                String placeholders = "?" + ",?".repeat(ids.size() - 1);
+                // The old amount column goes with unconverted rows; on MariaDB the archive keeps it until envelopes' is gone
+                String columns = "uuid, " + (database.hasAmountColumn("envelopes") ? "amount_minor, amount" : "amount_minor")
+                        + ", creator_uuid, status, currency_type, claimed_at";
+                try (PreparedStatement copy = conn.prepareStatement(database.insertIgnore()
+                        + " INTO envelopes_archive (" + columns + ") SELECT " + columns
+                        + " FROM envelopes WHERE uuid IN (" + placeholders + ")");
+                     PreparedStatement delete = conn.prepareStatement(
+                             "DELETE FROM envelopes WHERE uuid IN (" + placeholders + ")")) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        copy.setBytes(i + 1, ids.get(i));
+                        delete.setBytes(i + 1, ids.get(i));
+                    }
+                    copy.executeUpdate();
+                    delete.executeUpdate();
+                }
+                conn.commit();
+                return ids.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void incrementalVacuum() throws SQLException {
+        try (Connection conn = database.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement("PRAGMA auto_vacuum");
+                 ResultSet rs = stmt.executeQuery()) {
+                // 2 = INCREMENTAL; databases created before it was enabled need one offline VACUUM to switch
+                if (!rs.next() || rs.getInt(1) != 2) {
+                    if (!vacuumHintLogged) {
+                        MessageUtil.warn("SQLite incremental vacuum is not enabled on lixi.db; "
+                                + "run 'PRAGMA auto_vacuum = INCREMENTAL; VACUUM;' while the server is offline to reclaim space");
+                        vacuumHintLogged = true;
+                    }
+                    return;
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("PRAGMA incremental_vacuum(" + Math.max(1, config.getVacuumPages()) + ")")) {
+                stmt.execute();
+            }
+        }
+    }
+}
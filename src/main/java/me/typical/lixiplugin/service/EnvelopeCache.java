@@ -0,0 +1,115 @@
+package me.typical.lixiplugin.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU + TTL cache of envelope state keyed by envelope UUID.
+ * CLAIMED is terminal, so a cached CLAIMED entry lets repeat clicks be rejected without touching the database.
+ */
+public class EnvelopeCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<UUID, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public EnvelopeCache(int maxSize, long ttlSeconds) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1L, ttlSeconds));
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > EnvelopeCache.this.maxSize;
+            }
+        };
+    }
+
+    /** True if the envelope is known to be claimed (or to not exist). Counts as a hit or miss. */
+    public boolean isClaimed(UUID id) {
+        Entry entry = get(id);
+        if (entry != null && entry.status == EnvelopeStatus.CLAIMED) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /** Full envelope data if cached. Counts as a hit or miss. */
+    public DatabaseManager.EnvelopeData getData(UUID id) {
+        Entry entry = get(id);
+        if (entry != null && entry.data != null) {
+            hits.incrementAndGet();
+            return entry.data;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(UUID id, DatabaseManager.EnvelopeData data) {
+        put(id, new Entry(data.status(), data, System.nanoTime() + ttlNanos));
+    }
+
+    /** Marks the envelope claimed, keeping any known data. Also used for IDs that don't exist. */
+    public void markClaimed(UUID id) {
+        synchronized (entries) {
+            Entry previous = entries.get(id);
+            DatabaseManager.EnvelopeData data = previous != null && previous.data != null
+                    ? new DatabaseManager.EnvelopeData(previous.data.amount(), previous.data.creator(),
+                    EnvelopeStatus.CLAIMED, previous.data.currency())
+                    : null;
+            entries.put(id, new Entry(EnvelopeStatus.CLAIMED, data, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public void invalidate(UUID id) {
+        synchronized (entries) {
+            entries.remove(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private Entry get(UUID id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt - System.nanoTime() < 0) {
+                entries.remove(id);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(UUID id, Entry entry) {
+        synchronized (entries) {
+            entries.put(id, entry);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private record Entry(EnvelopeStatus status, DatabaseManager.EnvelopeData data, long expiresAt) {
+    }
+}
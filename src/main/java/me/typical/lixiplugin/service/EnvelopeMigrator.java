@@ -0,0 +1,170 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+import me.typical.lixiplugin.util.UuidUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves rows from envelopes_legacy (VARCHAR UUIDs, string enums) into the compact envelopes table.
+ * Each chunk is copied and deleted in one short transaction, so a row is always in exactly one table,
+ * and chunks are spaced out so live claims keep getting the connection. Rows that can't be converted are
+ * moved unchanged to envelopes_quarantine with the reason, for an admin to repair by hand.
+ */
+public class EnvelopeMigrator implements Runnable {
+
+    private final DatabaseManager database;
+    private final int chunkSize;
+    private final long chunkDelayMs;
+    private volatile boolean running = true;
+    private Thread thread;
+    private long moved;
+
+    public EnvelopeMigrator(DatabaseManager database, int chunkSize, long chunkDelayMs) {
+        this.database = database;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkDelayMs = Math.max(0L, chunkDelayMs);
+    }
+
+    public void start() {
+        thread = new Thread(this, "LiXi-EnvelopeMigrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        MessageUtil.info("Migrating legacy envelopes to compact schema (" + chunkSize + " rows per chunk)");
+        long started = System.currentTimeMillis();
+        try {
+            while (running) {
+                int count = moveChunk();
+                if (count == 0) {
+                    dropLegacyTable();
+                    MessageUtil.info("Envelope migration complete: " + moved + " rows in "
+                            + (System.currentTimeMillis() - started) + "ms");
+                    return;
+                }
+                moved += count;
+                if (moved % (chunkSize * 20L) < count) {
+                    MessageUtil.info("Envelope migration progress: " + moved + " rows");
+                }
+                Thread.sleep(chunkDelayMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            MessageUtil.error("Envelope migration stopped after " + moved + " rows, it will resume on next start");
+            e.printStackTrace();
+            return;
+        }
+        MessageUtil.info("Envelope migration paused after " + moved + " rows, it will resume on next start");
+    }
+
+    private int moveChunk() throws SQLException {
+        // Row locks on MariaDB so a concurrent legacy claim can't slip in between copy and delete
+        String selectSql = "SELECT uuid, amount, creator_uuid, status, currency_type FROM envelopes_legacy ORDER BY uuid LIMIT ?"
+                + (database.isSQLite() ? "" : " FOR UPDATE");
+        String insertSql = database.insertIgnore()
+                + " INTO envelopes (uuid, " + database.amountColumns() + ", creator_uuid, status, currency_type, claimed_at) VALUES (?, "
+                + database.amountPlaceholders() + ", ?, ?, ?, ?)";
+        String quarantineSql = "INSERT INTO envelopes_quarantine"
+                + " (uuid, amount, creator_uuid, status, currency_type, reason, quarantined_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String deleteSql = "DELETE FROM envelopes_legacy WHERE uuid = ?";
+
+        try (Connection conn = database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement insert = conn.prepareStatement(insertSql);
+                 PreparedStatement quarantine = conn.prepareStatement(quarantineSql);
+                 PreparedStatement delete = conn.prepareStatement(deleteSql)) {
+                List<String> ids = new ArrayList<>(chunkSize);
+                select.setInt(1, chunkSize);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        String id = rs.getString("uuid");
+                        ids.add(id);
+                        try {
+                            String currency = rs.getString("currency_type");
+                            insert.setBytes(1, UuidUtil.toBytes(UUID.fromString(id)));
+                            int index = database.bindAmount(insert, 2, MoneyUtil.toMinor(rs.getDouble("amount")));
+                            insert.setBytes(index, UuidUtil.toBytes(UUID.fromString(rs.getString("creator_uuid"))));
+                            EnvelopeStatus status = EnvelopeStatus.valueOf(rs.getString("status"));
+                            insert.setInt(index + 1, status.getCode());
+                            insert.setInt(index + 2, DatabaseManager.currencyCode(
+                                    LixiCurrency.valueOf(currency != null ? currency : "VAULT")));
+                            // Legacy rows have no claim time; 0 makes claimed ones eligible for archiving right away
+                            if (status == EnvelopeStatus.CLAIMED) {
+                                insert.setLong(index + 3, 0L);
+                            } else {
+                                insert.setNull(index + 3, Types.BIGINT);
+                            }
+                            insert.addBatch();
+                        } catch (IllegalArgumentException e) {
+                            // The row only leaves envelopes_legacy together with its quarantine copy
+                            String reason = String.valueOf(e.getMessage());
+                            quarantine.setString(1, id);
+                            quarantine.setObject(2, rs.getObject("amount"), Types.DOUBLE);
+                            quarantine.setString(3, rs.getString("creator_uuid"));
+                            quarantine.setString(4, rs.getString("status"));
+                            quarantine.setString(5, rs.getString("currency_type"));
+                            quarantine.setString(6, reason.length() > 255 ? reason.substring(0, 255) : reason);
+                            quarantine.setLong(7, System.currentTimeMillis());
+                            quarantine.addBatch();
+                            MessageUtil.warn("Quarantined malformed legacy envelope row " + id + ": " + reason);
+                        }
+                    }
+                }
+                if (ids.isEmpty()) {
+                    conn.commit();
+                    return 0;
+                }
+                insert.executeBatch();
+                quarantine.executeBatch();
+                for (String id : ids) {
+                    delete.setString(1, id);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+                conn.commit();
+                return ids.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void dropLegacyTable() throws SQLException {
+        // Stop routing lookups to the legacy table before it goes away
+        database.onLegacyMigrationComplete();
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DROP TABLE envelopes_legacy")) {
+            stmt.executeUpdate();
+        }
+    }
+}
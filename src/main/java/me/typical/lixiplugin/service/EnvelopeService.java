@@ -1,5 +1,6 @@
 package me.typical.lixiplugin.service;
 
+import com.tcoded.folialib.enums.EntityTaskResult;
 import me.typical.lixiplugin.LXPlugin;
 import me.typical.lixiplugin.config.types.Lixi;
 import me.typical.lixiplugin.config.types.MainConfig;
@@ -8,7 +9,10 @@ import me.typical.lixiplugin.economy.EconomyProvider;
 import me.typical.lixiplugin.economy.LixiCurrency;
 import me.typical.lixiplugin.hook.UniItemHook;
 import me.typical.lixiplugin.util.EffectUtil;
+import me.typical.lixiplugin.util.MessageSlot;
 import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+import me.typical.lixiplugin.util.RewardAction;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
@@ -18,6 +22,8 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -35,123 +41,250 @@ public class EnvelopeService implements IService, Listener {
     public void shutdown() {
     }
 
-    public boolean createEnvelope(Player creator, double amount, LixiCurrency currencyType) {
-        EconomyProvider provider = plugin.getEconomyProvider(currencyType);
-        if (provider == null || !provider.isAvailable()) {
-            MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-            MessageUtil.send(creator, messages.withPrefix(currencyType == LixiCurrency.POINTS
-                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()));
+    public boolean createEnvelope(Player creator, long amount, LixiCurrency currencyType) {
+        if (!allowed(creator, RateLimitAction.CREATE)) {
+            return false;
+        }
+        EconomyProvider provider = reserve(creator, amount, amount, currencyType);
+        if (provider == null) {
             return false;
         }
-
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-        MainConfig.EnvelopeConfig envelopeConfig = plugin.getConfigManager().getConfig(MainConfig.class).getEnvelope();
-        MainConfig.ChatLixiConfig chatConfig = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
 
-        double minAmount = currencyType == LixiCurrency.POINTS ? envelopeConfig.getMinPoints() : chatConfig.getMinAmount();
-        double maxAmount = currencyType == LixiCurrency.POINTS ? envelopeConfig.getMaxPoints() : chatConfig.getMaxAmount();
+        UUID envelopeId = UUID.randomUUID();
+        UniItemHook uniItem = plugin.getService(UniItemHook.class);
+        ItemStack envelope = uniItem.createEnvelopeItem(amount, envelopeId, currencyType);
 
-        if (amount < minAmount) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getAmountTooLow())
-                    .replace("%min%", provider.format(minAmount)));
+        recordLedger(LedgerType.CREATE, creator.getUniqueId(), null, amount, currencyType, envelopeId);
+        DatabaseManager db = plugin.getService(DatabaseManager.class);
+        db.insertEnvelope(envelopeId, amount, creator.getUniqueId(), currencyType).whenComplete((v, ex) -> {
+            if (ex != null) {
+                MessageUtil.error("Failed to save envelope to database, refunding " + creator.getName() + ": " + envelopeId);
+                provider.deposit(creator, MoneyUtil.toMajor(amount));
+                recordLedger(LedgerType.REFUND, creator.getUniqueId(), null, amount, currencyType, envelopeId);
+                plugin.getFoliaLib().getScheduler().runAtEntity(creator, task -> {
+                    // The row never made it to the database, so the item could never be claimed anyway
+                    creator.getInventory().removeItem(envelope);
+                    MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+                });
+            }
+        });
+
+        creator.getInventory().addItem(envelope);
+        MessageUtil.send(creator, messages.template(messages.getEnvelopeCreated())
+                .render(MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(amount))));
+        return true;
+    }
+
+    /**
+     * Mints {@code count} envelopes of {@code amount} each: one validation, one withdrawal of the total and
+     * one database transaction for every row. Items are handed over only once the rows are committed, and the
+     * total is refunded only once the transaction is confirmed rolled back.
+     */
+    public boolean createEnvelopes(Player creator, long amount, int count, LixiCurrency currencyType) {
+        if (count <= 1) {
+            return createEnvelope(creator, amount, currencyType);
+        }
+        if (!allowed(creator, RateLimitAction.CREATE)) {
             return false;
         }
-        if (amount > maxAmount) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getAmountTooHigh())
-                    .replace("%max%", provider.format(maxAmount)));
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        int maxCount = plugin.getConfigManager().getConfig(MainConfig.class).getEnvelope().getMaxBulkCount();
+        if (count > maxCount) {
+            MessageUtil.send(creator, messages.template(messages.getEnvelopeBulkTooMany())
+                    .render(MessageSlot.MAX, String.valueOf(maxCount)));
             return false;
         }
-
-        double balance = provider.getBalance(creator);
-        if (balance < amount) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getInsufficientBalance())
-                    .replace("%required%", provider.format(amount))
-                    .replace("%balance%", provider.format(balance)));
+        // Every envelope carries its own ID, so none of them stack; each needs a free slot
+        int freeSlots = 0;
+        for (ItemStack slot : creator.getInventory().getStorageContents()) {
+            if (slot == null || slot.getType().isAir()) {
+                freeSlots++;
+            }
+        }
+        if (freeSlots < count) {
+            MessageUtil.send(creator, messages.template(messages.getInventoryFull())
+                    .render(MessageSlot.COUNT, String.valueOf(count)));
             return false;
         }
-
-        if (!provider.withdraw(creator, amount)) {
-            MessageUtil.send(creator, messages.withPrefix(messages.getGenericError()));
+        long total;
+        try {
+            total = Math.multiplyExact(amount, count);
+        } catch (ArithmeticException e) {
+            MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+            return false;
+        }
+        EconomyProvider provider = reserve(creator, amount, total, currencyType);
+        if (provider == null) {
             return false;
         }
 
-        UUID envelopeId = UUID.randomUUID();
         UniItemHook uniItem = plugin.getService(UniItemHook.class);
-        ItemStack envelope = uniItem.createEnvelopeItem(amount, envelopeId, currencyType);
+        List<UUID> ids = new ArrayList<>(count);
+        ItemStack[] envelopes = new ItemStack[count];
+        for (int i = 0; i < count; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            envelopes[i] = uniItem.createEnvelopeItem(amount, id, currencyType);
+        }
 
+        UUID creatorId = creator.getUniqueId();
         DatabaseManager db = plugin.getService(DatabaseManager.class);
-        db.insertEnvelope(envelopeId, amount, creator.getUniqueId(), currencyType).whenComplete((v, ex) -> {
+        db.insertEnvelopes(ids, amount, creatorId, currencyType).whenComplete((written, ex) -> {
             if (ex != null) {
-                MessageUtil.error("Failed to save envelope to database: " + envelopeId);
-                ex.printStackTrace();
-                provider.deposit(creator, amount);
-                plugin.getFoliaLib().getScheduler().runAtEntity(creator, task -> {
-                    MessageUtil.send(creator, messages.withPrefix(messages.getGenericError()));
-                });
+                // The commit may or may not have landed; refunding or handing out items could double the money
+                MessageUtil.error("Could not confirm bulk mint of " + count + " envelopes for " + creator.getName()
+                        + " (" + MoneyUtil.formatMoney(total) + " withdrawn), check envelopes " + ids + ": " + ex);
+                plugin.getFoliaLib().getScheduler().runAtEntity(creator, task ->
+                        MessageUtil.send(creator, messages.template(messages.getGenericError()).render()));
+                return;
+            }
+            if (!written) {
+                MessageUtil.error("Bulk mint of " + count + " envelopes rolled back, refunding " + creator.getName()
+                        + " " + MoneyUtil.formatMoney(total));
+                provider.deposit(creator, MoneyUtil.toMajor(total));
+                plugin.getFoliaLib().getScheduler().runAtEntity(creator, task ->
+                        MessageUtil.send(creator, messages.template(messages.getGenericError()).render()));
+                return;
+            }
+            for (UUID id : ids) {
+                recordLedger(LedgerType.CREATE, creatorId, null, amount, currencyType, id);
             }
+            plugin.getFoliaLib().getScheduler().runAtEntity(creator, task -> {
+                // One inventory call for the whole mint; anything that no longer fits is dropped at the creator's feet
+                creator.getInventory().addItem(envelopes).values()
+                        .forEach(left -> creator.getWorld().dropItemNaturally(creator.getLocation(), left));
+                MessageUtil.send(creator, messages.template(messages.getEnvelopesCreated())
+                        .render(MessageSlot.COUNT, String.valueOf(count),
+                                MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(amount))));
+            }).thenAccept(result -> {
+                if (result != EntityTaskResult.SUCCESS) {
+                    reclaimUndelivered(creator, ids, provider, currencyType);
+                }
+            });
         });
-
-        creator.getInventory().addItem(envelope);
-        MessageUtil.send(creator, messages.withPrefix(messages.getEnvelopeCreated())
-                .replace("%amount%", provider.format(amount)));
         return true;
     }
 
-    public boolean directTransfer(Player sender, Player receiver, double amount, LixiCurrency currencyType) {
+    /** The creator left before the items could be handed over: claim the rows back and refund what that yields. */
+    private void reclaimUndelivered(Player creator, List<UUID> ids, EconomyProvider provider, LixiCurrency currencyType) {
+        DatabaseManager db = plugin.getService(DatabaseManager.class);
+        for (UUID id : ids) {
+            db.claimEnvelope(id).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    MessageUtil.error("Could not reclaim undelivered envelope " + id + " for " + creator.getName() + ": " + ex);
+                    return;
+                }
+                result.ifPresent(claim -> {
+                    provider.deposit(creator, MoneyUtil.toMajor(claim.amount()));
+                    recordLedger(LedgerType.REFUND, creator.getUniqueId(), null, claim.amount(), currencyType, id);
+                });
+            });
+        }
+    }
+
+    /**
+     * Validates the per-envelope amount and the creator's balance against the total, then withdraws the total.
+     * Returns the provider, or null after telling the creator why not.
+     */
+    private EconomyProvider reserve(Player creator, long amount, long total, LixiCurrency currencyType) {
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        EconomyProvider provider = plugin.getEconomyProvider(currencyType);
+        if (provider == null || !provider.isAvailable()) {
+            MessageUtil.send(creator, messages.template(currencyType == LixiCurrency.POINTS
+                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()).render());
+            return null;
+        }
+
+        MainConfig.EnvelopeConfig envelopeConfig = plugin.getConfigManager().getConfig(MainConfig.class).getEnvelope();
+        MainConfig.ChatLixiConfig chatConfig = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
+
+        long minAmount = MoneyUtil.toMinor(currencyType == LixiCurrency.POINTS ? envelopeConfig.getMinPoints() : chatConfig.getMinAmount());
+        long maxAmount = MoneyUtil.toMinor(currencyType == LixiCurrency.POINTS ? envelopeConfig.getMaxPoints() : chatConfig.getMaxAmount());
+
+        if (amount < minAmount) {
+            MessageUtil.send(creator, messages.template(messages.getAmountTooLow())
+                    .render(MessageSlot.MIN, provider.format(MoneyUtil.toMajor(minAmount))));
+            return null;
+        }
+        if (amount > maxAmount) {
+            MessageUtil.send(creator, messages.template(messages.getAmountTooHigh())
+                    .render(MessageSlot.MAX, provider.format(MoneyUtil.toMajor(maxAmount))));
+            return null;
+        }
+
+        long balance = MoneyUtil.toMinor(provider.getBalance(creator));
+        if (balance < total) {
+            MessageUtil.send(creator, messages.template(messages.getInsufficientBalance())
+                    .render(MessageSlot.REQUIRED, provider.format(MoneyUtil.toMajor(total)),
+                            MessageSlot.BALANCE, provider.format(MoneyUtil.toMajor(balance))));
+            return null;
+        }
+
+        if (!provider.withdraw(creator, MoneyUtil.toMajor(total))) {
+            MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+            return null;
+        }
+        return provider;
+    }
+
+    public boolean directTransfer(Player sender, Player receiver, long amount, LixiCurrency currencyType) {
         EconomyProvider provider = plugin.getEconomyProvider(currencyType);
         if (provider == null || !provider.isAvailable()) {
             MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-            MessageUtil.send(sender, messages.withPrefix(currencyType == LixiCurrency.POINTS
-                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()));
+            MessageUtil.send(sender, messages.template(currencyType == LixiCurrency.POINTS
+                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()).render());
             return false;
         }
 
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
         MainConfig.ChatLixiConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getChatLixi();
-        double minAmount = currencyType == LixiCurrency.POINTS ? config.getMinPoints() : config.getMinAmount();
-        double maxAmount = currencyType == LixiCurrency.POINTS ? config.getMaxPoints() : config.getMaxAmount();
+        long minAmount = MoneyUtil.toMinor(currencyType == LixiCurrency.POINTS ? config.getMinPoints() : config.getMinAmount());
+        long maxAmount = MoneyUtil.toMinor(currencyType == LixiCurrency.POINTS ? config.getMaxPoints() : config.getMaxAmount());
 
         if (sender.getUniqueId().equals(receiver.getUniqueId())) {
-            MessageUtil.send(sender, messages.withPrefix(messages.getCannotSendToSelf()));
+            MessageUtil.send(sender, messages.template(messages.getCannotSendToSelf()).render());
             return false;
         }
 
         if (amount < minAmount) {
-            MessageUtil.send(sender, messages.withPrefix(messages.getAmountTooLow())
-                    .replace("%min%", provider.format(minAmount)));
+            MessageUtil.send(sender, messages.template(messages.getAmountTooLow())
+                    .render(MessageSlot.MIN, provider.format(MoneyUtil.toMajor(minAmount))));
             return false;
         }
         if (amount > maxAmount) {
-            MessageUtil.send(sender, messages.withPrefix(messages.getAmountTooHigh())
-                    .replace("%max%", provider.format(maxAmount)));
+            MessageUtil.send(sender, messages.template(messages.getAmountTooHigh())
+                    .render(MessageSlot.MAX, provider.format(MoneyUtil.toMajor(maxAmount))));
             return false;
         }
 
-        double balance = provider.getBalance(sender);
+        long balance = MoneyUtil.toMinor(provider.getBalance(sender));
         if (balance < amount) {
-            MessageUtil.send(sender, messages.withPrefix(messages.getInsufficientBalance())
-                    .replace("%required%", provider.format(amount))
-                    .replace("%balance%", provider.format(balance)));
+            MessageUtil.send(sender, messages.template(messages.getInsufficientBalance())
+                    .render(MessageSlot.REQUIRED, provider.format(MoneyUtil.toMajor(amount)),
+                            MessageSlot.BALANCE, provider.format(MoneyUtil.toMajor(balance))));
             return false;
         }
 
-        if (!provider.withdraw(sender, amount)) {
-            MessageUtil.send(sender, messages.withPrefix(messages.getGenericError()));
+        if (!provider.withdraw(sender, MoneyUtil.toMajor(amount))) {
+            MessageUtil.send(sender, messages.template(messages.getGenericError()).render());
             return false;
         }
 
-        if (!provider.deposit(receiver, amount)) {
-            provider.deposit(sender, amount);
-            MessageUtil.send(sender, messages.withPrefix(messages.getGenericError()));
+        if (!provider.deposit(receiver, MoneyUtil.toMajor(amount))) {
+            provider.deposit(sender, MoneyUtil.toMajor(amount));
+            MessageUtil.send(sender, messages.template(messages.getGenericError()).render());
             return false;
         }
 
-        MessageUtil.send(sender, messages.withPrefix(messages.getTransferSent())
-                .replace("%player%", receiver.getName())
-                .replace("%amount%", provider.format(amount)));
-        MessageUtil.send(receiver, messages.withPrefix(messages.getTransferReceived())
-                .replace("%player%", sender.getName())
-                .replace("%amount%", provider.format(amount)));
+        recordLedger(LedgerType.TRANSFER, sender.getUniqueId(), receiver.getUniqueId(), amount, currencyType, null);
+
+        MessageUtil.send(sender, messages.template(messages.getTransferSent())
+                .render(MessageSlot.PLAYER, receiver.getName(),
+                        MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(amount))));
+        MessageUtil.send(receiver, messages.template(messages.getTransferReceived())
+                .render(MessageSlot.PLAYER, sender.getName(),
+                        MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(amount))));
 
         plugin.getFoliaLib().getScheduler().runAtEntity(receiver, task -> EffectUtil.playLixiEffect(receiver));
         return true;
@@ -173,47 +306,51 @@ public class EnvelopeService implements IService, Listener {
             return;
         }
 
-        UniItemHook uniItem = plugin.getService(UniItemHook.class);
-        if (uniItem.isLixiItemPack(item)) {
-            event.setCancelled(true);
-            handleItemPackClaim(player, item);
+        UniItemHook.LixiItem lixiItem = plugin.getService(UniItemHook.class).classify(item);
+        if (lixiItem.kind() == UniItemHook.LixiItemKind.NONE) {
             return;
         }
-        if (!uniItem.isLixiEnvelope(item)) {
+        event.setCancelled(true);
+        if (lixiItem.kind() == UniItemHook.LixiItemKind.ITEM_PACK) {
+            handleItemPackClaim(player, item, lixiItem.packName());
             return;
         }
-        event.setCancelled(true);
-        UUID envelopeId = uniItem.getEnvelopeId(item);
+        UUID envelopeId = lixiItem.envelopeId();
         if (envelopeId == null) {
-            MessageUtil.send(player, plugin.getConfigManager().getConfig(MessageConfig.class)
-                    .withPrefix(plugin.getConfigManager().getConfig(MessageConfig.class).getGenericError()));
+            MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+            MessageUtil.send(player, messages.template(messages.getGenericError()).render());
             return;
         }
 
+        if (!allowed(player, RateLimitAction.CLAIM)) {
+            return;
+        }
         DatabaseManager db = plugin.getService(DatabaseManager.class);
-        db.claimEnvelope(envelopeId).thenAccept(optionalResult -> {
+        db.claimEnvelope(envelopeId).whenComplete((optionalResult, ex) -> {
             plugin.getFoliaLib().getScheduler().runAtEntity(player, task -> {
-                handleEnvelopeClaim(player, item, optionalResult);
+                if (ex != null) {
+                    MessageUtil.warn("Envelope claim failed for " + player.getName() + " (envelope " + envelopeId + "): " + ex);
+                    MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+                    MessageUtil.send(player, messages.template(messages.getGenericError()).render());
+                    return;
+                }
+                handleEnvelopeClaim(player, item, envelopeId, optionalResult);
             });
         });
     }
 
-    private void handleItemPackClaim(Player player, ItemStack item) {
+    private void handleItemPackClaim(Player player, ItemStack item, String lixiName) {
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
-        UniItemHook uniItem = plugin.getService(UniItemHook.class);
-
-        String lixiName = uniItem.getLixiItemPackName(item);
-        Lixi.LixiEntry entry = uniItem.getLixiEntry(lixiName);
+        Lixi.LixiEntry entry = plugin.getService(UniItemHook.class).getLixiEntry(lixiName);
 
-        if (entry == null || entry.getCommands() == null || entry.getCommands().isEmpty()) {
-            MessageUtil.send(player, messages.withPrefix(messages.getGenericError()));
+        List<RewardAction> rewards = entry != null ? entry.getRewards() : List.of();
+        if (rewards.isEmpty()) {
+            MessageUtil.send(player, messages.template(messages.getGenericError()).render());
             return;
         }
 
-        String playerName = player.getName();
-        for (String cmd : entry.getCommands()) {
-            String resolved = cmd.replace("%player%", playerName);
-            plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), resolved);
+        for (RewardAction reward : rewards) {
+            reward.run(player);
         }
 
         if (item.getAmount() <= 1) {
@@ -222,26 +359,27 @@ public class EnvelopeService implements IService, Listener {
             item.setAmount(item.getAmount() - 1);
         }
 
-        MessageUtil.send(player, messages.withPrefix(messages.getEnvelopeItemPackClaimed()));
+        MessageUtil.send(player, messages.template(messages.getEnvelopeItemPackClaimed()).render());
         EffectUtil.playLixiEffect(player);
     }
 
-    private void handleEnvelopeClaim(Player player, ItemStack envelope, Optional<DatabaseManager.ClaimResult> optionalResult) {
+    private void handleEnvelopeClaim(Player player, ItemStack envelope, UUID envelopeId, Optional<DatabaseManager.ClaimResult> optionalResult) {
         MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
 
         if (optionalResult.isEmpty()) {
-            MessageUtil.send(player, messages.withPrefix(messages.getEnvelopeAlreadyClaimed()));
+            MessageUtil.send(player, messages.template(messages.getEnvelopeAlreadyClaimed()).render());
             return;
         }
 
         DatabaseManager.ClaimResult result = optionalResult.get();
         EconomyProvider provider = plugin.getEconomyProvider(result.currency());
         if (provider == null || !provider.isAvailable()) {
-            MessageUtil.send(player, messages.withPrefix(messages.getGenericError()));
+            MessageUtil.send(player, messages.template(messages.getGenericError()).render());
             return;
         }
 
-        provider.deposit(player, result.amount());
+        provider.deposit(player, MoneyUtil.toMajor(result.amount()));
+        recordLedger(LedgerType.CLAIM, player.getUniqueId(), null, result.amount(), result.currency(), envelopeId);
 
         if (envelope.getAmount() <= 1) {
             player.getInventory().setItemInMainHand(new ItemStack(Material.AIR));
@@ -249,8 +387,20 @@ public class EnvelopeService implements IService, Listener {
             envelope.setAmount(envelope.getAmount() - 1);
         }
 
-        MessageUtil.send(player, messages.withPrefix(messages.getEnvelopeClaimed())
-                .replace("%amount%", provider.format(result.amount())));
+        MessageUtil.send(player, messages.template(messages.getEnvelopeClaimed())
+                .render(MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(result.amount()))));
         EffectUtil.playLixiEffect(player);
     }
+
+    private boolean allowed(Player player, RateLimitAction action) {
+        RateLimiter limiter = plugin.getService(RateLimiter.class);
+        return limiter == null || limiter.tryAcquire(player, action);
+    }
+
+    private void recordLedger(LedgerType type, UUID actor, UUID target, long amount, LixiCurrency currency, UUID reference) {
+        LedgerService ledger = plugin.getService(LedgerService.class);
+        if (ledger != null) {
+            ledger.record(type, actor, target, amount, currency, reference);
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package me.typical.lixiplugin.service;
+
+/** Envelope row status, stored as a small integer code. */
+public enum EnvelopeStatus {
+    UNUSED(0),
+    CLAIMED(1);
+
+    private final int code;
+
+    EnvelopeStatus(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static EnvelopeStatus fromCode(int code) {
+        return code == CLAIMED.code ? CLAIMED : UNUSED;
+    }
+}
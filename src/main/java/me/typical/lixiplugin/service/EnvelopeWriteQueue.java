@@ -0,0 +1,162 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.UuidUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind queue for envelope inserts. Pending rows are flushed as one JDBC batch per
+ * transaction when the batch size is reached or the flush interval elapses.
+ * Each caller's future completes (or fails) for its own envelope.
+ */
+public class EnvelopeWriteQueue {
+
+    private final DatabaseManager database;
+    private final String insertSql;
+    private final int batchSize;
+    private final ConcurrentLinkedQueue<PendingInsert> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    public EnvelopeWriteQueue(DatabaseManager database, int batchSize, long flushIntervalMs) {
+        this.database = database;
+        this.insertSql = insertSql(database);
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LiXi-EnvelopeWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10L, flushIntervalMs);
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    static String insertSql(DatabaseManager database) {
+        return "INSERT INTO envelopes (uuid, " + database.amountColumns() + ", creator_uuid, status, currency_type) VALUES (?, "
+                + database.amountPlaceholders() + ", ?, ?, ?)";
+    }
+
+    public CompletableFuture<Void> enqueue(UUID id, long amount, UUID creator, LixiCurrency currencyType) {
+        PendingInsert insert = new PendingInsert(id, amount, creator, currencyType, new CompletableFuture<>());
+        pending.add(insert);
+        if (pendingCount.incrementAndGet() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    flushScheduled.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+        return insert.future;
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /** Drains the queue in batch-sized chunks. Only ever called from the flusher thread (or after it stopped). */
+    private void flush() {
+        List<PendingInsert> batch = new ArrayList<>(batchSize);
+        PendingInsert next;
+        while (true) {
+            while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            pendingCount.addAndGet(-batch.size());
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingInsert> batch) {
+        try (Connection conn = database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                for (PendingInsert insert : batch) {
+                    bind(stmt, insert);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                conn.setAutoCommit(autoCommit);
+                // One bad row poisons the whole batch; retry row by row so only the failing envelopes are refunded
+                MessageUtil.warn("Envelope batch insert failed (" + batch.size() + " rows), retrying individually: " + e.getMessage());
+                writeIndividually(conn, batch);
+                return;
+            }
+            conn.setAutoCommit(autoCommit);
+            for (PendingInsert insert : batch) {
+                insert.future.complete(null);
+            }
+        } catch (SQLException e) {
+            MessageUtil.error("Failed to flush " + batch.size() + " envelope inserts");
+            e.printStackTrace();
+            for (PendingInsert insert : batch) {
+                insert.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void writeIndividually(Connection conn, List<PendingInsert> batch) {
+        for (PendingInsert insert : batch) {
+            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                bind(stmt, insert);
+                stmt.executeUpdate();
+                insert.future.complete(null);
+            } catch (SQLException e) {
+                MessageUtil.error("Failed to insert envelope: " + insert.id);
+                insert.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void bind(PreparedStatement stmt, PendingInsert insert) throws SQLException {
+        stmt.setBytes(1, UuidUtil.toBytes(insert.id));
+        int index = database.bindAmount(stmt, 2, insert.amount);
+        stmt.setBytes(index, UuidUtil.toBytes(insert.creator));
+        stmt.setInt(index + 1, EnvelopeStatus.UNUSED.getCode());
+        stmt.setInt(index + 2, DatabaseManager.currencyCode(insert.currencyType));
+    }
+
+    /** Stops the timer and writes everything still queued. Call before the pool is closed. */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private record PendingInsert(UUID id, long amount, UUID creator, LixiCurrency currencyType,
+                                 CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,118 @@
+package me.typical.lixiplugin.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Two-level timing wheel with one-second ticks: 64 one-second slots backed by 64 slots of 64 seconds.
+ * Scheduling and cancelling are O(1); each {@link #advance()} returns every key that fell due.
+ * Outer slots cascade into the inner wheel as it wraps, and deadlines past the outer range are
+ * parked in its last slot and re-placed on each cascade.
+ */
+public class ExpiryWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final List<List<Node>> inner = newWheel();
+    private final List<List<Node>> outer = newWheel();
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private long currentTick;
+
+    /** Schedules the key to come due after the given number of ticks, replacing any earlier schedule. */
+    public synchronized void schedule(UUID key, long delayTicks) {
+        Node previous = nodes.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        Node node = new Node(key, currentTick + Math.max(1L, delayTicks));
+        nodes.put(key, node);
+        place(node);
+    }
+
+    /** Cancels a pending key; the dead node is dropped lazily when its slot is reached. */
+    public synchronized boolean cancel(UUID key) {
+        Node node = nodes.remove(key);
+        if (node == null) {
+            return false;
+        }
+        node.cancelled = true;
+        return true;
+    }
+
+    /** Moves the wheel forward one tick and returns the keys that are now due. */
+    public synchronized List<UUID> advance() {
+        currentTick++;
+        int innerIndex = (int) (currentTick & WHEEL_MASK);
+        if (innerIndex == 0) {
+            cascade();
+        }
+
+        List<Node> slot = inner.get(innerIndex);
+        if (slot.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> due = new ArrayList<>(slot.size());
+        for (Node node : slot) {
+            if (!node.cancelled && nodes.remove(node.key, node)) {
+                due.add(node.key);
+            }
+        }
+        slot.clear();
+        return due;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    private void cascade() {
+        int outerIndex = (int) ((currentTick >>> WHEEL_BITS) & WHEEL_MASK);
+        List<Node> slot = outer.get(outerIndex);
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Node> moving = new ArrayList<>(slot);
+        slot.clear();
+        for (Node node : moving) {
+            if (!node.cancelled) {
+                place(node);
+            }
+        }
+    }
+
+    private void place(Node node) {
+        long delta = node.deadline - currentTick;
+        if (delta < WHEEL_SIZE && (node.deadline >>> WHEEL_BITS) == (currentTick >>> WHEEL_BITS)) {
+            inner.get((int) (node.deadline & WHEEL_MASK)).add(node);
+        } else if (delta < (long) WHEEL_SIZE * WHEEL_SIZE) {
+            outer.get((int) ((node.deadline >>> WHEEL_BITS) & WHEEL_MASK)).add(node);
+        } else {
+            // Beyond the outer range: park one rotation ahead and re-place on cascade
+            outer.get((int) (((currentTick >>> WHEEL_BITS) - 1) & WHEEL_MASK)).add(node);
+        }
+    }
+
+    private static List<List<Node>> newWheel() {
+        List<List<Node>> wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        return wheel;
+    }
+
+    private static final class Node {
+        final UUID key;
+        final long deadline;
+        boolean cancelled;
+
+        Node(UUID key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.LXPlugin;
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.UuidUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only ledger of every lixi money movement. record() only enqueues;
+ * a background thread writes entries in batches so hot paths never wait on the database.
+ */
+public class LedgerService implements IService {
+
+    /** Keyset page after (created_at, id), spelled out as a plain range that both engines match to the index. */
+    private static final String AFTER_CURSOR = "(created_at > ? OR (created_at = ? AND id > ?))";
+    private static final String PAGE_ORDER = " ORDER BY created_at, id LIMIT ?";
+    /** Entries kept for retry when the database is unavailable; beyond this they are logged and dropped. */
+    private static final int MAX_RETRY_BACKLOG = 10_000;
+
+    private final LXPlugin plugin = LXPlugin.getInstance();
+    private final ConcurrentLinkedQueue<LedgerEntry> pending = new ConcurrentLinkedQueue<>();
+    /** Entries from a failed flush; only touched by the writer thread. */
+    private final List<LedgerEntry> retry = new ArrayList<>();
+    private ScheduledExecutorService writer;
+    private DatabaseManager database;
+    private boolean enabled;
+    private int batchSize;
+
+    @Override
+    public void setup() {
+        start(plugin.getConfigManager().getConfig(MainConfig.class).getLedger(), plugin.getService(DatabaseManager.class));
+    }
+
+    /** Starts the writer against a running database. Needs no server, so tests call it directly. */
+    void start(MainConfig.LedgerConfig config, DatabaseManager database) {
+        this.database = database;
+        enabled = config.isEnabled() && database != null;
+        if (!enabled) {
+            MessageUtil.info("Transaction ledger disabled");
+            return;
+        }
+        batchSize = Math.max(1, config.getBatchSize());
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LiXi-LedgerWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(50L, config.getFlushIntervalMs());
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        MessageUtil.info("Transaction ledger enabled");
+    }
+
+    @Override
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Records a money movement. Never blocks.
+     *
+     * @param actor     player whose balance changed (payer for CREATE/TRANSFER, payee otherwise)
+     * @param target    counterparty, or null
+     * @param amount    minor units
+     * @param reference envelope or chat session ID, or null
+     */
+    public void record(LedgerType type, UUID actor, UUID target, long amount, LixiCurrency currency, UUID reference) {
+        if (!enabled) {
+            return;
+        }
+        pending.add(new LedgerEntry(0L, System.currentTimeMillis(), type, actor, target, amount,
+                currency != null ? currency : LixiCurrency.VAULT, reference));
+    }
+
+    private void flush() {
+        List<LedgerEntry> batch = new ArrayList<>(batchSize);
+        batch.addAll(retry);
+        retry.clear();
+        LedgerEntry next;
+        while ((next = pending.poll()) != null || !batch.isEmpty()) {
+            if (next != null) {
+                batch.add(next);
+                if (batch.size() < batchSize) {
+                    continue;
+                }
+            }
+            if (!writeBatch(batch)) {
+                retry.addAll(batch);
+                if (retry.size() > MAX_RETRY_BACKLOG) {
+                    MessageUtil.error("Ledger backlog full, dropping " + retry.size() + " entries");
+                    retry.forEach(entry -> MessageUtil.warn("Dropped ledger entry: " + entry));
+                    retry.clear();
+                }
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean writeBatch(List<LedgerEntry> batch) {
+        try (Connection conn = database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            String sql = "INSERT INTO ledger (created_at, type, actor_uuid, target_uuid, " + database.amountColumns()
+                    + ", currency_type, reference_uuid) VALUES (?, ?, ?, ?, " + database.amountPlaceholders() + ", ?, ?)";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (LedgerEntry entry : batch) {
+                    stmt.setLong(1, entry.createdAt());
+                    stmt.setInt(2, entry.type().getCode());
+                    stmt.setBytes(3, UuidUtil.toBytes(entry.actor()));
+                    setNullableUuid(stmt, 4, entry.target());
+                    int index = database.bindAmount(stmt, 5, entry.amount());
+                    stmt.setInt(index, DatabaseManager.currencyCode(entry.currency()));
+                    setNullableUuid(stmt, index + 1, entry.reference());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            MessageUtil.error("Failed to write " + batch.size() + " ledger entries, will retry: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Entries with created_at in [fromMillis, toMillis), ordered by (created_at, id). Page by passing the last
+     * returned entry as after (null for the first page); reads the created_at index in order.
+     */
+    public CompletableFuture<List<LedgerEntry>> scan(long fromMillis, long toMillis, LedgerEntry after, int limit) {
+        String sql = selectColumns() + "WHERE created_at >= ? AND created_at < ? AND " + AFTER_CURSOR + PAGE_ORDER;
+        return query(sql, stmt -> {
+            stmt.setLong(1, fromMillis);
+            stmt.setLong(2, toMillis);
+            bindCursor(stmt, 3, fromMillis, after);
+            stmt.setInt(6, limit);
+        });
+    }
+
+    /** Same as {@link #scan} restricted to one player; reads the (actor_uuid, created_at) index in order. */
+    public CompletableFuture<List<LedgerEntry>> scanByActor(UUID actor, long fromMillis, long toMillis, LedgerEntry after, int limit) {
+        String sql = selectColumns() + "WHERE actor_uuid = ? AND created_at >= ? AND created_at < ? AND " + AFTER_CURSOR + PAGE_ORDER;
+        return query(sql, stmt -> {
+            stmt.setBytes(1, UuidUtil.toBytes(actor));
+            stmt.setLong(2, fromMillis);
+            stmt.setLong(3, toMillis);
+            bindCursor(stmt, 4, fromMillis, after);
+            stmt.setInt(7, limit);
+        });
+    }
+
+    private String selectColumns() {
+        return "SELECT id, created_at, type, actor_uuid, target_uuid, " + database.amountSelect("ledger")
+                + ", currency_type, reference_uuid FROM ledger ";
+    }
+
+    /** Ids start at 1, so (fromMillis, 0) is before every row in range. */
+    private static void bindCursor(PreparedStatement stmt, int index, long fromMillis, LedgerEntry after) throws SQLException {
+        long createdAt = after != null ? after.createdAt() : fromMillis;
+        stmt.setLong(index, createdAt);
+        stmt.setLong(index + 1, createdAt);
+        stmt.setLong(index + 2, after != null ? after.id() : 0L);
+    }
+
+    private CompletableFuture<List<LedgerEntry>> query(String sql, StatementBinder binder) {
+        return database.getExecutor().supply(() -> {
+            List<LedgerEntry> entries = new ArrayList<>();
+            try (Connection conn = database.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+                binder.bind(stmt);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        entries.add(new LedgerEntry(
+                                rs.getLong("id"),
+                                rs.getLong("created_at"),
+                                LedgerType.fromCode(rs.getInt("type")),
+                                UuidUtil.fromBytes(rs.getBytes("actor_uuid")),
+                                getNullableUuid(rs, "target_uuid"),
+                                DatabaseManager.readAmount(rs),
+                                DatabaseManager.currencyFromCode(rs.getInt("currency_type")),
+                                getNullableUuid(rs, "reference_uuid")
+                        ));
+                    }
+                }
+            } catch (SQLException e) {
+                MessageUtil.error("Failed to scan ledger");
+                e.printStackTrace();
+            }
+            return entries;
+        });
+    }
+
+    private static void setNullableUuid(PreparedStatement stmt, int index, UUID uuid) throws SQLException {
+        if (uuid == null) {
+            stmt.setNull(index, Types.BINARY);
+        } else {
+            stmt.setBytes(index, UuidUtil.toBytes(uuid));
+        }
+    }
+
+    private static UUID getNullableUuid(ResultSet rs, String column) throws SQLException {
+        byte[] bytes = rs.getBytes(column);
+        return bytes != null ? UuidUtil.fromBytes(bytes) : null;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    public record LedgerEntry(long id, long createdAt, LedgerType type, UUID actor, UUID target,
+                              long amount, LixiCurrency currency, UUID reference) {
+    }
+}
@@ -0,0 +1,34 @@
+package me.typical.lixiplugin.service;
+
+/** Kind of money movement recorded in the ledger, stored as a small integer code. */
+public enum LedgerType {
+    /** Creator paid into an envelope or chat lixi. */
+    CREATE(0),
+    /** Player received money from an envelope or chat lixi. */
+    CLAIM(1),
+    /** Direct player-to-player transfer. */
+    TRANSFER(2),
+    /** Money returned to the creator after a failure. */
+    REFUND(3),
+    /** Unclaimed chat lixi money returned to the creator on expiry. */
+    EXPIRY(4);
+
+    private final int code;
+
+    LedgerType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static LedgerType fromCode(int code) {
+        for (LedgerType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ledger type: " + code);
+    }
+}
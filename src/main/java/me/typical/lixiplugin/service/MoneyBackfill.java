@@ -0,0 +1,178 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills amount_minor from the old DOUBLE amount column, walking each table by primary key in short
+ * transactions spaced out like {@link EnvelopeMigrator}. Rows already converted are left alone, so a pass
+ * stopped by a restart simply resumes. Once a table has no unconverted rows, reads stop looking at amount;
+ * on MariaDB the column is then dropped online. SQLite keeps it as a write-only shadow, because its
+ * DROP COLUMN rewrites the whole table under the single writer connection.
+ */
+public class MoneyBackfill implements Runnable {
+
+    private final DatabaseManager database;
+    private final List<String> tables;
+    private final int chunkSize;
+    private final long chunkDelayMs;
+    private final long dropDelayMs;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    /**
+     * @param tables      tables still holding an amount column, in backfill order
+     * @param dropDelayMs wait between retiring a column for reads and dropping it, so lookups built
+     *                    just before can finish
+     */
+    public MoneyBackfill(DatabaseManager database, List<String> tables, int chunkSize, long chunkDelayMs, long dropDelayMs) {
+        this.database = database;
+        this.tables = List.copyOf(tables);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkDelayMs = Math.max(0L, chunkDelayMs);
+        this.dropDelayMs = Math.max(0L, dropDelayMs);
+    }
+
+    public void start() {
+        thread = new Thread(this, "LiXi-MoneyBackfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Waits for every table to finish; for tests. */
+    void await(long timeoutMs) throws InterruptedException {
+        if (thread != null) {
+            thread.join(timeoutMs);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (String table : tables) {
+                if (!running) {
+                    break;
+                }
+                backfill(table);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            MessageUtil.error("Money column backfill stopped, it will resume on next start");
+            e.printStackTrace();
+        }
+    }
+
+    private void backfill(String table) throws SQLException, InterruptedException {
+        String key = primaryKey(table);
+        long converted = 0;
+        if (hasUnconvertedRows(table)) {
+            MessageUtil.info("Converting " + table + " amounts to minor units (" + chunkSize + " rows per chunk)");
+            Object after = null;
+            while (true) {
+                if (!running) {
+                    MessageUtil.info("Money backfill of " + table + " paused after " + converted + " rows, it will resume on next start");
+                    return;
+                }
+                Chunk chunk = convertChunk(table, key, after);
+                converted += chunk.converted();
+                if (chunk.last() == null) {
+                    break;
+                }
+                after = chunk.last();
+                Thread.sleep(chunkDelayMs);
+            }
+            MessageUtil.info("Converted " + converted + " " + table + " amounts to minor units");
+        }
+
+        database.onAmountBackfilled(table);
+        if (!database.isSQLite()) {
+            Thread.sleep(dropDelayMs);
+            try (Connection conn = database.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(
+                         "ALTER TABLE " + table + " DROP COLUMN IF EXISTS amount, ALGORITHM=INPLACE, LOCK=NONE")) {
+                stmt.execute();
+            }
+            MessageUtil.info("Dropped " + table + ".amount");
+        }
+    }
+
+    private boolean hasUnconvertedRows(String table) throws SQLException {
+        try (Connection conn = database.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM " + table + " WHERE amount_minor IS NULL LIMIT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /** Converts the rows among the next chunkSize keys after {@code after}; a null last key means the table is done. */
+    private Chunk convertChunk(String table, String key, Object after) throws SQLException {
+        String selectSql = "SELECT " + key + ", amount, amount_minor FROM " + table
+                + (after != null ? " WHERE " + key + " > ?" : "") + " ORDER BY " + key + " LIMIT ?";
+        String updateSql = "UPDATE " + table + " SET amount_minor = ? WHERE " + key + " = ? AND amount_minor IS NULL";
+
+        try (Connection conn = database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement select = conn.prepareStatement(selectSql);
+                 PreparedStatement update = conn.prepareStatement(updateSql)) {
+                int index = 1;
+                if (after != null) {
+                    select.setObject(index++, after);
+                }
+                select.setInt(index, chunkSize);
+                List<Object> keys = new ArrayList<>(chunkSize);
+                int converted = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        Object id = rs.getObject(key);
+                        keys.add(id);
+                        rs.getLong("amount_minor");
+                        if (rs.wasNull()) {
+                            update.setLong(1, MoneyUtil.toMinor(rs.getDouble("amount")));
+                            update.setObject(2, id);
+                            update.addBatch();
+                            converted++;
+                        }
+                    }
+                }
+                if (converted > 0) {
+                    update.executeBatch();
+                }
+                conn.commit();
+                return new Chunk(keys.size() < chunkSize ? null : keys.get(keys.size() - 1), converted);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static String primaryKey(String table) {
+        return table.equals("ledger") ? "id" : "uuid";
+    }
+
+    private record Chunk(Object last, int converted) {
+    }
+}
@@ -0,0 +1,363 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.UuidUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Network-wide chat lixi pools. Each share is a row in lixi_pool_shares, so any backend sharing the
+ * database claims with one short transaction and no coordinator: read the pool row (shared lock on
+ * MariaDB), take one free share with FOR UPDATE SKIP LOCKED, and stamp it with the claimer.
+ * UNIQUE (pool_uuid, claimer_uuid) enforces one share per player across servers.
+ * Expired pools are settled by whichever server deletes the pool row first.
+ */
+public class PoolStore {
+
+    private final DatabaseManager database;
+    private boolean skipLocked;
+
+    public PoolStore(DatabaseManager database) {
+        this.database = database;
+        this.skipLocked = database.supportsSkipLocked();
+    }
+
+    /** Overrides the detected SKIP LOCKED support so the plain FOR UPDATE path can be tested on any server. */
+    void setSkipLocked(boolean skipLocked) {
+        this.skipLocked = skipLocked;
+    }
+
+    /**
+     * Inserts the pool and its shares in one transaction. Completes true once committed and false once the
+     * transaction is confirmed rolled back, the only case where the creator may be refunded. Fails when the
+     * outcome cannot be confirmed.
+     */
+    public CompletableFuture<Boolean> create(UUID poolId, UUID creator, String creatorName, long amount, LixiCurrency currency,
+                                             long[] shares, long createdAt, long expiresAt) {
+        return database.getExecutor().write(() -> {
+            try {
+                insert(poolId, creator, creatorName, amount, currency, shares, createdAt, expiresAt);
+                return true;
+            } catch (SQLException e) {
+                MessageUtil.error("Failed to insert lixi pool " + poolId + ": " + e.getMessage());
+                // A commit that reported an error can still have landed; look before anyone refunds
+                try {
+                    return exists(poolId, createdAt);
+                } catch (SQLException check) {
+                    check.addSuppressed(e);
+                    throw new CompletionException(check);
+                }
+            }
+        });
+    }
+
+    private void insert(UUID poolId, UUID creator, String creatorName, long amount, LixiCurrency currency,
+                        long[] shares, long createdAt, long expiresAt) throws SQLException {
+        try (Connection conn = database.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pool = conn.prepareStatement("INSERT INTO lixi_pools (pool_uuid, creator_uuid, "
+                    + "creator_name, amount_minor, currency_type, slots, created_at, expires_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+                 PreparedStatement share = conn.prepareStatement(
+                         "INSERT INTO lixi_pool_shares (pool_uuid, share_index, amount_minor) VALUES (?, ?, ?)")) {
+                byte[] key = UuidUtil.toBytes(poolId);
+                pool.setBytes(1, key);
+                pool.setBytes(2, UuidUtil.toBytes(creator));
+                pool.setString(3, creatorName);
+                pool.setLong(4, amount);
+                pool.setInt(5, DatabaseManager.currencyCode(currency));
+                pool.setInt(6, shares.length);
+                pool.setLong(7, createdAt);
+                pool.setLong(8, expiresAt);
+                pool.executeUpdate();
+                for (int i = 0; i < shares.length; i++) {
+                    share.setBytes(1, key);
+                    share.setInt(2, i);
+                    share.setLong(3, shares[i]);
+                    share.addBatch();
+                }
+                share.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /** Whether this particular create landed; created_at tells it apart from an older pool with the same ID. */
+    private boolean exists(UUID poolId, long createdAt) throws SQLException {
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM lixi_pools WHERE pool_uuid = ? AND created_at = ?")) {
+            stmt.setBytes(1, UuidUtil.toBytes(poolId));
+            stmt.setLong(2, createdAt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    public CompletableFuture<PoolClaim> claim(UUID poolId, UUID claimer) {
+        return database.getExecutor().write(() -> {
+            try (Connection conn = database.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    PoolClaim result = claim(conn, UuidUtil.toBytes(poolId), UuidUtil.toBytes(claimer));
+                    conn.commit();
+                    return result;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    if (isUniqueViolation(e)) {
+                        return PoolClaim.of(PoolClaimStatus.ALREADY_CLAIMED);
+                    }
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private PoolClaim claim(Connection conn, byte[] pool, byte[] claimer) throws SQLException {
+        boolean sqlite = database.isSQLite();
+        UUID creator;
+        LixiCurrency currency;
+        // The shared lock holds off settlement (DELETE of this row) until the claim commits
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT creator_uuid, currency_type, expires_at FROM lixi_pools "
+                + "WHERE pool_uuid = ?" + (sqlite ? "" : " LOCK IN SHARE MODE"))) {
+            stmt.setBytes(1, pool);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getLong("expires_at") <= System.currentTimeMillis()) {
+                    return PoolClaim.of(PoolClaimStatus.EXPIRED);
+                }
+                creator = UuidUtil.fromBytes(rs.getBytes("creator_uuid"));
+                currency = DatabaseManager.currencyFromCode(rs.getInt("currency_type"));
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM lixi_pool_shares WHERE pool_uuid = ? AND claimer_uuid = ?")) {
+            stmt.setBytes(1, pool);
+            stmt.setBytes(2, claimer);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return PoolClaim.of(PoolClaimStatus.ALREADY_CLAIMED);
+                }
+            }
+        }
+
+        // SKIP LOCKED lets concurrent claimers on other servers take different free shares instead of queueing.
+        // Servers without it queue on the row; a share taken while we waited fails the guarded UPDATE, and we
+        // look again, so the claim only reports EMPTY once no free share is left.
+        String lock = sqlite ? "" : skipLocked ? " FOR UPDATE SKIP LOCKED" : " FOR UPDATE";
+        try (PreparedStatement select = conn.prepareStatement("SELECT share_index, amount_minor FROM lixi_pool_shares "
+                + "WHERE pool_uuid = ? AND claimer_uuid IS NULL ORDER BY share_index LIMIT 1" + lock);
+             PreparedStatement update = conn.prepareStatement("UPDATE lixi_pool_shares SET claimer_uuid = ?, claimed_at = ? "
+                     + "WHERE pool_uuid = ? AND share_index = ? AND claimer_uuid IS NULL")) {
+            while (true) {
+                int shareIndex;
+                long amount;
+                select.setBytes(1, pool);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        return PoolClaim.of(PoolClaimStatus.EMPTY);
+                    }
+                    shareIndex = rs.getInt("share_index");
+                    amount = rs.getLong("amount_minor");
+                }
+
+                update.setBytes(1, claimer);
+                update.setLong(2, System.currentTimeMillis());
+                update.setBytes(3, pool);
+                update.setInt(4, shareIndex);
+                if (update.executeUpdate() > 0) {
+                    return new PoolClaim(PoolClaimStatus.CLAIMED, amount, currency, creator);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts a claimed share back so someone else can take it, for a claim that could not be paid.
+     * Completes false if the pool was settled in the meantime, in which case the share is owed to the claimer.
+     */
+    public CompletableFuture<Boolean> release(UUID poolId, UUID claimer) {
+        return database.getExecutor().write(() -> {
+            try (Connection conn = database.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try {
+                    byte[] pool = UuidUtil.toBytes(poolId);
+                    boolean released = false;
+                    // Same shared lock as a claim, so settlement cannot delete the pool halfway through
+                    try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM lixi_pools WHERE pool_uuid = ?"
+                            + (database.isSQLite() ? "" : " LOCK IN SHARE MODE"))) {
+                        stmt.setBytes(1, pool);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            released = rs.next();
+                        }
+                    }
+                    if (released) {
+                        try (PreparedStatement stmt = conn.prepareStatement("UPDATE lixi_pool_shares SET claimer_uuid = NULL, "
+                                + "claimed_at = NULL WHERE pool_uuid = ? AND claimer_uuid = ?")) {
+                            stmt.setBytes(1, pool);
+                            stmt.setBytes(2, UuidUtil.toBytes(claimer));
+                            released = stmt.executeUpdate() > 0;
+                        }
+                    }
+                    conn.commit();
+                    return released;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /** Pools still open for claims, for announcing pools created on other servers. */
+    public CompletableFuture<List<PoolInfo>> listOpen() {
+        return database.getExecutor().supply(() -> {
+            List<PoolInfo> pools = new ArrayList<>();
+            try (Connection conn = database.getReadConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT pool_uuid, creator_name, amount_minor, "
+                         + "currency_type, slots, expires_at FROM lixi_pools WHERE expires_at > ?")) {
+                stmt.setLong(1, System.currentTimeMillis());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        pools.add(new PoolInfo(
+                                UuidUtil.fromBytes(rs.getBytes("pool_uuid")),
+                                rs.getString("creator_name"),
+                                rs.getLong("amount_minor"),
+                                DatabaseManager.currencyFromCode(rs.getInt("currency_type")),
+                                rs.getInt("slots"),
+                                rs.getLong("expires_at")
+                        ));
+                    }
+                }
+            } catch (SQLException e) {
+                MessageUtil.error("Failed to list lixi pools: " + e.getMessage());
+            }
+            return pools;
+        });
+    }
+
+    /**
+     * Settles pools that expired before the cutoff. Deleting the pool row is the settlement token,
+     * so exactly one server refunds each pool even when several sweep at once.
+     */
+    public CompletableFuture<List<Settlement>> settleExpired(long cutoff) {
+        return database.getExecutor().write(() -> {
+            List<Settlement> settled = new ArrayList<>();
+            try (Connection conn = database.getConnection()) {
+                List<byte[]> due = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT pool_uuid FROM lixi_pools WHERE expires_at <= ?")) {
+                    stmt.setLong(1, cutoff);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            due.add(rs.getBytes("pool_uuid"));
+                        }
+                    }
+                }
+                for (byte[] pool : due) {
+                    Settlement settlement = settle(conn, pool);
+                    if (settlement != null) {
+                        settled.add(settlement);
+                    }
+                }
+            } catch (SQLException e) {
+                MessageUtil.error("Failed to settle expired lixi pools: " + e.getMessage());
+            }
+            return settled;
+        });
+    }
+
+    private Settlement settle(Connection conn, byte[] pool) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            UUID creator;
+            LixiCurrency currency;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT creator_uuid, currency_type FROM lixi_pools WHERE pool_uuid = ?"
+                    + (database.isSQLite() ? "" : " FOR UPDATE"))) {
+                stmt.setBytes(1, pool);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.commit();
+                        return null;
+                    }
+                    creator = UuidUtil.fromBytes(rs.getBytes("creator_uuid"));
+                    currency = DatabaseManager.currencyFromCode(rs.getInt("currency_type"));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM lixi_pools WHERE pool_uuid = ?")) {
+                stmt.setBytes(1, pool);
+                if (stmt.executeUpdate() == 0) {
+                    conn.commit();
+                    return null;
+                }
+            }
+            long remaining;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT COALESCE(SUM(amount_minor), 0) FROM lixi_pool_shares WHERE pool_uuid = ? AND claimer_uuid IS NULL")) {
+                stmt.setBytes(1, pool);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    remaining = rs.next() ? rs.getLong(1) : 0L;
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM lixi_pool_shares WHERE pool_uuid = ?")) {
+                stmt.setBytes(1, pool);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+            return new Settlement(UuidUtil.fromBytes(pool), creator, currency, remaining);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean isUniqueViolation(SQLException e) {
+        String state = e.getSQLState();
+        return (state != null && state.startsWith("23"))
+                || (e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed"));
+    }
+
+    public enum PoolClaimStatus {
+        CLAIMED, ALREADY_CLAIMED, EMPTY, EXPIRED
+    }
+
+    /** @param amount share value in minor units; only set when CLAIMED */
+    public record PoolClaim(PoolClaimStatus status, long amount, LixiCurrency currency, UUID creator) {
+        static PoolClaim of(PoolClaimStatus status) {
+            return new PoolClaim(status, 0L, null, null);
+        }
+    }
+
+    public record PoolInfo(UUID poolId, String creatorName, long amount, LixiCurrency currency, int slots, long expiresAt) {
+    }
+
+    /** @param remaining unclaimed total in minor units, owed back to the creator */
+    public record Settlement(UUID poolId, UUID creator, LixiCurrency currency, long remaining) {
+    }
+}
@@ -0,0 +1,257 @@
+package me.typical.lixiplugin.service;
+
+import com.tcoded.folialib.wrapper.task.WrappedTask;
+import me.typical.lixiplugin.LXPlugin;
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.config.types.MessageConfig;
+import me.typical.lixiplugin.economy.EconomyProvider;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.EffectUtil;
+import me.typical.lixiplugin.util.MessageSlot;
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.MoneyUtil;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lixi rain: one total split across every online player. Shares are computed up front and the total is
+ * withdrawn once; deposits then go out in fixed-size batches, one batch per tick, each deposit running on
+ * the recipient's region thread. Shares that could not be delivered (the player left) go back to the creator.
+ */
+public class RainService implements IService {
+
+    private final LXPlugin plugin = LXPlugin.getInstance();
+    private final Set<Rain> activeRains = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void setup() {
+        MessageUtil.info("RainService initialized");
+    }
+
+    @Override
+    public void shutdown() {
+        // Shares not yet handed to a region thread are returned; in-flight ones finish or are lost with the server
+        for (Rain rain : activeRains) {
+            rain.stopped = true;
+            WrappedTask task = rain.task;
+            if (task != null) {
+                task.cancel();
+            }
+            long remaining = 0;
+            for (int i = rain.cursor; i < rain.shares.length; i++) {
+                remaining += rain.shares[i];
+            }
+            if (remaining > 0) {
+                rain.provider.deposit(plugin.getServer().getOfflinePlayer(rain.creatorId), MoneyUtil.toMajor(remaining));
+                recordLedger(LedgerType.REFUND, rain.creatorId, null, remaining, rain.currency, rain.rainId);
+            }
+        }
+        activeRains.clear();
+    }
+
+    public boolean startRain(Player creator, long total, RainSplit split, LixiCurrency currencyType) {
+        if (!allowed(creator)) {
+            return false;
+        }
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        EconomyProvider provider = plugin.getEconomyProvider(currencyType);
+        if (provider == null || !provider.isAvailable()) {
+            MessageUtil.send(creator, messages.template(currencyType == LixiCurrency.POINTS
+                    ? messages.getPointsNotAvailable() : messages.getVaultNotAvailable()).render());
+            return false;
+        }
+
+        List<Player> recipients = new ArrayList<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (!player.getUniqueId().equals(creator.getUniqueId())) {
+                recipients.add(player);
+            }
+        }
+        if (recipients.isEmpty()) {
+            MessageUtil.send(creator, messages.template(messages.getRainNoRecipients()).render());
+            return false;
+        }
+        if (total < ChatLixiService.minimumSplit(recipients.size(), currencyType)) {
+            MessageUtil.send(creator, messages.template(messages.getRainTooSmall())
+                    .render(MessageSlot.COUNT, String.valueOf(recipients.size())));
+            return false;
+        }
+
+        long balance = MoneyUtil.toMinor(provider.getBalance(creator));
+        if (balance < total) {
+            MessageUtil.send(creator, messages.template(messages.getInsufficientBalance())
+                    .render(MessageSlot.REQUIRED, provider.format(MoneyUtil.toMajor(total)),
+                            MessageSlot.BALANCE, provider.format(MoneyUtil.toMajor(balance))));
+            return false;
+        }
+        if (!provider.withdraw(creator, MoneyUtil.toMajor(total))) {
+            MessageUtil.send(creator, messages.template(messages.getGenericError()).render());
+            return false;
+        }
+
+        long[] shares = split == RainSplit.EQUAL
+                ? equalShares(total, recipients.size(), ChatLixiService.splitUnit(currencyType))
+                : ChatLixiService.splitShares(total, recipients.size(), currencyType);
+        Rain rain = new Rain(UUID.randomUUID(), creator.getUniqueId(), creator.getName(), provider, currencyType,
+                recipients.toArray(Player[]::new), shares);
+        recordLedger(LedgerType.CREATE, rain.creatorId, null, total, currencyType, rain.rainId);
+
+        plugin.getService(BroadcastService.class).broadcast(messages.template(messages.getRainStarted())
+                .render(MessageSlot.PLAYER, creator.getName(),
+                        MessageSlot.AMOUNT, provider.format(MoneyUtil.toMajor(total)),
+                        MessageSlot.COUNT, String.valueOf(recipients.size())));
+
+        activeRains.add(rain);
+        plugin.getFoliaLib().getScheduler().runTimer(task -> {
+            rain.task = task;
+            deliverBatch(rain, task);
+        }, 1L, 1L);
+        return true;
+    }
+
+    /** Starts the next batch of deposits; runs once per tick until every share has been handed out. */
+    private void deliverBatch(Rain rain, WrappedTask timer) {
+        if (rain.stopped) {
+            timer.cancel();
+            return;
+        }
+        int batchSize = Math.max(1, plugin.getConfigManager().getConfig(MainConfig.class).getRain().getBatchSize());
+        int end = Math.min(rain.cursor + batchSize, rain.shares.length);
+        for (int i = rain.cursor; i < end; i++) {
+            int index = i;
+            Player player = rain.recipients[index];
+            plugin.getFoliaLib().getScheduler().runAtEntity(player, task -> deliver(rain, index))
+                    .whenComplete((result, ex) -> rain.settle(index));
+        }
+        rain.cursor = end;
+        if (end == rain.shares.length) {
+            timer.cancel();
+        }
+    }
+
+    private void deliver(Rain rain, int index) {
+        Player player = rain.recipients[index];
+        if (!player.isOnline()) {
+            return;
+        }
+        long share = rain.shares[index];
+        if (!rain.provider.deposit(player, MoneyUtil.toMajor(share))) {
+            return;
+        }
+        rain.delivered[index] = true;
+        recordLedger(LedgerType.CLAIM, player.getUniqueId(), rain.creatorId, share, rain.currency, rain.rainId);
+
+        MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+        MessageUtil.send(player, messages.template(messages.getRainReceived())
+                .render(MessageSlot.PLAYER, rain.creatorName,
+                        MessageSlot.AMOUNT, rain.provider.format(MoneyUtil.toMajor(share))));
+        EffectUtil.playLixiEffect(player);
+    }
+
+    /** Refunds what could not be delivered and reports how long the rain took. */
+    private void finish(Rain rain) {
+        activeRains.remove(rain);
+        long elapsedNanos = System.nanoTime() - rain.startNanos;
+        long undelivered = rain.undelivered.get();
+        if (undelivered > 0) {
+            rain.provider.deposit(plugin.getServer().getOfflinePlayer(rain.creatorId), MoneyUtil.toMajor(undelivered));
+            recordLedger(LedgerType.REFUND, rain.creatorId, null, undelivered, rain.currency, rain.rainId);
+        }
+
+        int delivered = rain.deliveredCount.get();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        String elapsed = String.format("%.2fs", seconds);
+        String throughput = String.format("%.0f", seconds > 0 ? delivered / seconds : delivered);
+        MessageUtil.info("Lixi rain " + rain.rainId + " by " + rain.creatorName + ": " + delivered + "/" + rain.shares.length
+                + " deliveries in " + elapsed + " (" + throughput + "/s), refunded " + MoneyUtil.formatMoney(undelivered));
+
+        Player creator = plugin.getServer().getPlayer(rain.creatorId);
+        if (creator != null) {
+            plugin.getFoliaLib().getScheduler().runAtEntity(creator, task -> {
+                MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+                MessageUtil.send(creator, messages.template(messages.getRainFinished())
+                        .render(MessageSlot.COUNT, String.valueOf(delivered),
+                                MessageSlot.DURATION, elapsed,
+                                MessageSlot.LIMIT, throughput,
+                                MessageSlot.AMOUNT, rain.provider.format(MoneyUtil.toMajor(undelivered))));
+            });
+        }
+    }
+
+    /** Whole units split evenly; the first {@code units % count} shares get one extra unit. */
+    private static long[] equalShares(long total, int count, long unit) {
+        long units = total / unit;
+        long[] shares = new long[count];
+        for (int i = 0; i < count; i++) {
+            shares[i] = (units / count + (i < units % count ? 1 : 0)) * unit;
+        }
+        // Sub-unit dust (never more than one unit) rides on the first share
+        shares[0] += total - units * unit;
+        return shares;
+    }
+
+    private boolean allowed(Player player) {
+        RateLimiter limiter = plugin.getService(RateLimiter.class);
+        return limiter == null || limiter.tryAcquire(player, RateLimitAction.CREATE);
+    }
+
+    private void recordLedger(LedgerType type, UUID actor, UUID target, long amount, LixiCurrency currency, UUID reference) {
+        LedgerService ledger = plugin.getService(LedgerService.class);
+        if (ledger != null) {
+            ledger.record(type, actor, target, amount, currency, reference);
+        }
+    }
+
+    private final class Rain {
+        final UUID rainId;
+        final UUID creatorId;
+        final String creatorName;
+        final EconomyProvider provider;
+        final LixiCurrency currency;
+        final Player[] recipients;
+        final long[] shares;
+        /** Written on the recipient's region thread, read once its task's future completes. */
+        final boolean[] delivered;
+        final AtomicInteger pending;
+        final AtomicInteger deliveredCount = new AtomicInteger();
+        final AtomicLong undelivered = new AtomicLong();
+        final long startNanos = System.nanoTime();
+        /** Next share to hand out; only advanced by the batch timer. */
+        volatile int cursor;
+        /** Set by the timer's first run; the scheduler only hands it to the consumer. */
+        volatile WrappedTask task;
+        volatile boolean stopped;
+
+        Rain(UUID rainId, UUID creatorId, String creatorName, EconomyProvider provider, LixiCurrency currency,
+             Player[] recipients, long[] shares) {
+            this.rainId = rainId;
+            this.creatorId = creatorId;
+            this.creatorName = creatorName;
+            this.provider = provider;
+            this.currency = currency;
+            this.recipients = recipients;
+            this.shares = shares;
+            this.delivered = new boolean[shares.length];
+            this.pending = new AtomicInteger(shares.length);
+        }
+
+        /** Called once per share after its entity task ran or was dropped because the player left. */
+        void settle(int index) {
+            if (delivered[index]) {
+                deliveredCount.incrementAndGet();
+            } else {
+                undelivered.addAndGet(shares[index]);
+            }
+            if (pending.decrementAndGet() == 0) {
+                finish(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package me.typical.lixiplugin.service;
+
+/** How a lixi rain divides its total between recipients. */
+public enum RainSplit {
+    /** Same share for everyone; leftover units go to the first recipients. */
+    EQUAL,
+    /** Double Average random shares, as in chat lixi. */
+    RANDOM
+}
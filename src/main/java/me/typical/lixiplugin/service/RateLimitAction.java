@@ -0,0 +1,9 @@
+package me.typical.lixiplugin.service;
+
+/** Throttled player actions, each with its own token bucket per player. */
+public enum RateLimitAction {
+    /** /lixi claim and envelope right-clicks */
+    CLAIM,
+    /** /lixi chat, /lixi pool and /lixi phongbao */
+    CREATE
+}
@@ -0,0 +1,130 @@
+package me.typical.lixiplugin.service;
+
+import com.tcoded.folialib.wrapper.task.WrappedTask;
+import me.typical.lixiplugin.LXPlugin;
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.config.types.MessageConfig;
+import me.typical.lixiplugin.util.MessageUtil;
+import org.bukkit.entity.Player;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-player token buckets checked before any economy or database work.
+ * A check on a known player allocates nothing; buckets idle longer than the configured time are evicted.
+ */
+public class RateLimiter implements IService {
+
+    private final LXPlugin plugin = LXPlugin.getInstance();
+    private final Map<RateLimitAction, ConcurrentHashMap<UUID, Bucket>> buckets = new EnumMap<>(RateLimitAction.class);
+    private WrappedTask evictionTask;
+
+    @Override
+    public void setup() {
+        for (RateLimitAction action : RateLimitAction.values()) {
+            buckets.put(action, new ConcurrentHashMap<>());
+        }
+        evictionTask = plugin.getFoliaLib().getScheduler().runTimerAsync(this::evictIdle, 60L * 20L, 60L * 20L);
+        MessageUtil.info("RateLimiter initialized");
+    }
+
+    @Override
+    public void shutdown() {
+        if (evictionTask != null) {
+            evictionTask.cancel();
+        }
+        buckets.values().forEach(Map::clear);
+    }
+
+    /** Takes one token for the action; false if the player is over the limit. */
+    public boolean tryAcquire(UUID player, RateLimitAction action) {
+        return acquire(player, action) == Outcome.ALLOWED;
+    }
+
+    /**
+     * {@link #tryAcquire} that also tells the player they are being throttled, at most once per refill
+     * interval so a macro spamming the action doesn't turn into a chat flood.
+     */
+    public boolean tryAcquire(Player player, RateLimitAction action) {
+        Outcome outcome = acquire(player.getUniqueId(), action);
+        if (outcome == Outcome.REJECTED) {
+            MessageConfig messages = plugin.getConfigManager().getConfig(MessageConfig.class);
+            MessageUtil.send(player, messages.template(messages.getRateLimited()).render());
+        }
+        return outcome == Outcome.ALLOWED;
+    }
+
+    private Outcome acquire(UUID player, RateLimitAction action) {
+        MainConfig.RateLimitConfig config = plugin.getConfigManager().getConfig(MainConfig.class).getRateLimit();
+        if (!config.isEnabled()) {
+            return Outcome.ALLOWED;
+        }
+        MainConfig.BucketConfig limit = action == RateLimitAction.CLAIM ? config.getClaim() : config.getCreate();
+        long now = System.nanoTime();
+
+        ConcurrentHashMap<UUID, Bucket> map = buckets.get(action);
+        Bucket bucket = map.get(player);
+        if (bucket == null) {
+            Bucket created = new Bucket(limit.getCapacity(), now);
+            bucket = map.putIfAbsent(player, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        return bucket.tryAcquire(now, limit.getCapacity(), limit.getRefillPerSecond());
+    }
+
+    private void evictIdle() {
+        long idleNanos = TimeUnit.SECONDS.toNanos(
+                plugin.getConfigManager().getConfig(MainConfig.class).getRateLimit().getIdleEvictSeconds());
+        long now = System.nanoTime();
+        for (ConcurrentHashMap<UUID, Bucket> map : buckets.values()) {
+            map.values().removeIf(bucket -> bucket.idleSince(now) > idleNanos);
+        }
+    }
+
+    enum Outcome {
+        ALLOWED,
+        /** Over the limit and the player should be told. */
+        REJECTED,
+        /** Over the limit, already told within the last refill interval. */
+        REJECTED_QUIETLY
+    }
+
+    static final class Bucket {
+        private double tokens;
+        private long lastRefill;
+        private long lastNotified;
+        private boolean notified;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        synchronized Outcome tryAcquire(long now, int capacity, double refillPerSecond) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerSecond / 1_000_000_000.0);
+            lastRefill = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return Outcome.ALLOWED;
+            }
+            // One notice per token regained; a zero refill rate never regains one, so it notifies once
+            long interval = refillPerSecond > 0 ? (long) (1_000_000_000.0 / refillPerSecond) : Long.MAX_VALUE;
+            if (notified && now - lastNotified < interval) {
+                return Outcome.REJECTED_QUIETLY;
+            }
+            notified = true;
+            lastNotified = now;
+            return Outcome.REJECTED;
+        }
+
+        synchronized long idleSince(long now) {
+            return now - lastRefill;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.util.MessageUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned schema migrations. The current version lives in schema_version and only steps above it run,
+ * each inside a transaction together with its version bump, so an up-to-date database runs no DDL at all.
+ * MariaDB commits DDL implicitly, so a failed step there may leave earlier statements applied without the
+ * version bump. Every MariaDB statement is therefore safe to run again ({@code IF NOT EXISTS}, guarded
+ * updates and renames), and the step simply re-runs on the next start. A fresh install starts from the
+ * compact envelopes table instead of building the legacy one only to migrate it away.
+ */
+public class SchemaMigrator {
+
+    private static final List<Step> COMPACT_ENVELOPES_SQLITE = List.of(
+            sql("""
+                CREATE TABLE IF NOT EXISTS envelopes (
+                    uuid BINARY(16) PRIMARY KEY,
+                    amount DOUBLE NOT NULL,
+                    creator_uuid BINARY(16) NOT NULL,
+                    status TINYINT NOT NULL DEFAULT 0,
+                    currency_type TINYINT NOT NULL DEFAULT 0
+                )
+                """),
+            sql("CREATE INDEX IF NOT EXISTS idx_envelopes_creator_status ON envelopes (creator_uuid, status)")
+    );
+
+    private static final List<Step> COMPACT_ENVELOPES_MARIADB = List.of(sql("""
+            CREATE TABLE IF NOT EXISTS envelopes (
+                uuid BINARY(16) PRIMARY KEY,
+                amount DOUBLE NOT NULL,
+                creator_uuid BINARY(16) NOT NULL,
+                status TINYINT NOT NULL DEFAULT 0,
+                currency_type TINYINT NOT NULL DEFAULT 0,
+                INDEX idx_envelopes_creator_status (creator_uuid, status)
+            ) ENGINE=InnoDB
+            """));
+
+    /** Replaces migrations 1-3 on an empty database. */
+    private static final Migration FRESH_INSTALL = new Migration(3, "create compact envelopes table",
+            COMPACT_ENVELOPES_SQLITE, COMPACT_ENVELOPES_MARIADB);
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create envelopes table",
+                    List.of(sql("""
+                            CREATE TABLE IF NOT EXISTS envelopes (
+                                uuid VARCHAR(36) PRIMARY KEY,
+                                amount DOUBLE NOT NULL,
+                                creator_uuid VARCHAR(36) NOT NULL,
+                                status VARCHAR(10) NOT NULL DEFAULT 'UNUSED'
+                            )
+                            """)),
+                    List.of(sql("""
+                            CREATE TABLE IF NOT EXISTS envelopes (
+                                uuid VARCHAR(36) PRIMARY KEY,
+                                amount DOUBLE NOT NULL,
+                                creator_uuid VARCHAR(36) NOT NULL,
+                                status VARCHAR(10) NOT NULL DEFAULT 'UNUSED'
+                            ) ENGINE=InnoDB
+                            """))),
+            new Migration(2, "add envelopes.currency_type",
+                    List.of(sql("ALTER TABLE envelopes ADD COLUMN currency_type VARCHAR(10) NOT NULL DEFAULT 'VAULT'")),
+                    List.of(sql("ALTER TABLE envelopes ADD COLUMN IF NOT EXISTS currency_type VARCHAR(10) NOT NULL DEFAULT 'VAULT'"))),
+            // Rows are copied out of envelopes_legacy in the background by EnvelopeMigrator
+            new Migration(3, "compact envelopes schema",
+                    concat(sql("ALTER TABLE envelopes RENAME TO envelopes_legacy"), COMPACT_ENVELOPES_SQLITE),
+                    concat(SchemaMigrator::renameLegacyEnvelopes, COMPACT_ENVELOPES_MARIADB)),
+            // Legacy rows EnvelopeMigrator can't convert are parked here as-is instead of being deleted
+            new Migration(4, "legacy envelope quarantine",
+                    List.of(sql("""
+                            CREATE TABLE IF NOT EXISTS envelopes_quarantine (
+                                uuid VARCHAR(36) PRIMARY KEY,
+                                amount DOUBLE,
+                                creator_uuid VARCHAR(36),
+                                status VARCHAR(10),
+                                currency_type VARCHAR(10),
+                                reason VARCHAR(255) NOT NULL,
+                                quarantined_at BIGINT NOT NULL
+                            )
+                            """)),
+                    List.of(sql("""
+                            CREATE TABLE IF NOT EXISTS envelopes_quarantine (
+                                uuid VARCHAR(36) PRIMARY KEY,
+                                amount DOUBLE,
+                                creator_uuid VARCHAR(36),
+                                status VARCHAR(10),
+                                currency_type VARCHAR(10),
+                                reason VARCHAR(255) NOT NULL,
+                                quarantined_at BIGINT NOT NULL
+                            ) ENGINE=InnoDB
+                            """))),
+            // Both engines end every secondary index in the primary key, so these already serve (created_at, id) pages
+            new Migration(5, "create ledger table",
+                    List.of(
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS ledger (
+                                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                                    created_at BIGINT NOT NULL,
+                                    type TINYINT NOT NULL,
+                                    actor_uuid BINARY(16) NOT NULL,
+                                    target_uuid BINARY(16),
+                                    amount DOUBLE NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    reference_uuid BINARY(16)
+                                )
+                                """),
+                            sql("CREATE INDEX IF NOT EXISTS idx_ledger_created ON ledger (created_at)"),
+                            sql("CREATE INDEX IF NOT EXISTS idx_ledger_actor_created ON ledger (actor_uuid, created_at)")
+                    ),
+                    List.of(sql("""
+                            CREATE TABLE IF NOT EXISTS ledger (
+                                id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                created_at BIGINT NOT NULL,
+                                type TINYINT NOT NULL,
+                                actor_uuid BINARY(16) NOT NULL,
+                                target_uuid BINARY(16),
+                                amount DOUBLE NOT NULL,
+                                currency_type TINYINT NOT NULL,
+                                reference_uuid BINARY(16),
+                                INDEX idx_ledger_created (created_at),
+                                INDEX idx_ledger_actor_created (actor_uuid, created_at)
+                            ) ENGINE=InnoDB
+                            """))),
+            // Claims before this migration have no time; 0 makes them eligible for archiving right away
+            new Migration(6, "envelope claim time and archive table",
+                    List.of(
+                            addColumn("envelopes", "claimed_at", "BIGINT"),
+                            sql("UPDATE envelopes SET claimed_at = 0 WHERE status = 1 AND claimed_at IS NULL"),
+                            sql("CREATE INDEX IF NOT EXISTS idx_envelopes_claimed_at ON envelopes (claimed_at)"),
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS envelopes_archive (
+                                    uuid BINARY(16) PRIMARY KEY,
+                                    amount DOUBLE NOT NULL,
+                                    creator_uuid BINARY(16) NOT NULL,
+                                    status TINYINT NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    claimed_at BIGINT
+                                )
+                                """)
+                    ),
+                    List.of(
+                            sql("ALTER TABLE envelopes ADD COLUMN IF NOT EXISTS claimed_at BIGINT NULL"),
+                            sql("UPDATE envelopes SET claimed_at = 0 WHERE status = 1 AND claimed_at IS NULL"),
+                            sql("CREATE INDEX IF NOT EXISTS idx_envelopes_claimed_at ON envelopes (claimed_at)"),
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS envelopes_archive (
+                                    uuid BINARY(16) PRIMARY KEY,
+                                    amount DOUBLE NOT NULL,
+                                    creator_uuid BINARY(16) NOT NULL,
+                                    status TINYINT NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    claimed_at BIGINT
+                                ) ENGINE=InnoDB
+                                """)
+                    )),
+            // Money becomes long minor units (1/100). Only adds the columns; MoneyBackfill converts existing rows
+            // in the background and retires the DOUBLE amount columns, so no table is rewritten at startup.
+            new Migration(7, "fixed-point money columns",
+                    List.of(
+                            addColumn("envelopes", "amount_minor", "BIGINT"),
+                            addColumn("envelopes_archive", "amount_minor", "BIGINT"),
+                            addColumn("ledger", "amount_minor", "BIGINT")
+                    ),
+                    List.of(
+                            sql("ALTER TABLE envelopes ADD COLUMN IF NOT EXISTS amount_minor BIGINT NULL"),
+                            sql("ALTER TABLE envelopes_archive ADD COLUMN IF NOT EXISTS amount_minor BIGINT NULL"),
+                            sql("ALTER TABLE ledger ADD COLUMN IF NOT EXISTS amount_minor BIGINT NULL"),
+                            // Metadata-only; lets inserts leave amount out once the backfill stops writing it
+                            whenColumnExists("envelopes", "amount", "ALTER TABLE envelopes ALTER COLUMN amount SET DEFAULT 0"),
+                            whenColumnExists("envelopes_archive", "amount", "ALTER TABLE envelopes_archive ALTER COLUMN amount SET DEFAULT 0"),
+                            whenColumnExists("ledger", "amount", "ALTER TABLE ledger ALTER COLUMN amount SET DEFAULT 0")
+                    )),
+            new Migration(8, "chat session journal",
+                    List.of(
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS chat_sessions (
+                                    session_uuid BINARY(16) PRIMARY KEY,
+                                    creator_uuid BINARY(16) NOT NULL,
+                                    creator_name VARCHAR(16) NOT NULL,
+                                    amount_minor BIGINT NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    shares BLOB NOT NULL,
+                                    created_at BIGINT NOT NULL,
+                                    expires_at BIGINT NOT NULL
+                                )
+                                """),
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS chat_session_claims (
+                                    session_uuid BINARY(16) NOT NULL,
+                                    share_index INT NOT NULL,
+                                    claimer_uuid BINARY(16) NOT NULL,
+                                    PRIMARY KEY (session_uuid, share_index)
+                                )
+                                """)
+                    ),
+                    List.of(
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS chat_sessions (
+                                    session_uuid BINARY(16) PRIMARY KEY,
+                                    creator_uuid BINARY(16) NOT NULL,
+                                    creator_name VARCHAR(16) NOT NULL,
+                                    amount_minor BIGINT NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    shares MEDIUMBLOB NOT NULL,
+                                    created_at BIGINT NOT NULL,
+                                    expires_at BIGINT NOT NULL
+                                ) ENGINE=InnoDB
+                                """),
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS chat_session_claims (
+                                    session_uuid BINARY(16) NOT NULL,
+                                    share_index INT NOT NULL,
+                                    claimer_uuid BINARY(16) NOT NULL,
+                                    PRIMARY KEY (session_uuid, share_index)
+                                ) ENGINE=InnoDB
+                                """)
+                    )),
+            new Migration(9, "network lixi pools",
+                    List.of(
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS lixi_pools (
+                                    pool_uuid BINARY(16) PRIMARY KEY,
+                                    creator_uuid BINARY(16) NOT NULL,
+                                    creator_name VARCHAR(16) NOT NULL,
+                                    amount_minor BIGINT NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    slots INT NOT NULL,
+                                    created_at BIGINT NOT NULL,
+                                    expires_at BIGINT NOT NULL
+                                )
+                                """),
+                            sql("CREATE INDEX IF NOT EXISTS idx_lixi_pools_expires ON lixi_pools (expires_at)"),
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS lixi_pool_shares (
+                                    pool_uuid BINARY(16) NOT NULL,
+                                    share_index INT NOT NULL,
+                                    amount_minor BIGINT NOT NULL,
+                                    claimer_uuid BINARY(16),
+                                    claimed_at BIGINT,
+                                    PRIMARY KEY (pool_uuid, share_index),
+                                    UNIQUE (pool_uuid, claimer_uuid)
+                                )
+                                """)
+                    ),
+                    List.of(
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS lixi_pools (
+                                    pool_uuid BINARY(16) PRIMARY KEY,
+                                    creator_uuid BINARY(16) NOT NULL,
+                                    creator_name VARCHAR(16) NOT NULL,
+                                    amount_minor BIGINT NOT NULL,
+                                    currency_type TINYINT NOT NULL,
+                                    slots INT NOT NULL,
+                                    created_at BIGINT NOT NULL,
+                                    expires_at BIGINT NOT NULL,
+                                    INDEX idx_lixi_pools_expires (expires_at)
+                                ) ENGINE=InnoDB
+                                """),
+                            sql("""
+                                CREATE TABLE IF NOT EXISTS lixi_pool_shares (
+                                    pool_uuid BINARY(16) NOT NULL,
+                                    share_index INT NOT NULL,
+                                    amount_minor BIGINT NOT NULL,
+                                    claimer_uuid BINARY(16),
+                                    claimed_at BIGINT,
+                                    PRIMARY KEY (pool_uuid, share_index),
+                                    UNIQUE KEY uq_lixi_pool_claimer (pool_uuid, claimer_uuid)
+                                ) ENGINE=InnoDB
+                                """)
+                    ))
+    );
+
+    private final boolean sqlite;
+
+    public SchemaMigrator(boolean sqlite) {
+        this.sqlite = sqlite;
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    /** Brings the schema up to date and returns the number of steps applied. */
+    public int migrate(Connection conn) throws SQLException {
+        return migrateTo(conn, latestVersion());
+    }
+
+    int migrateTo(Connection conn, int target) throws SQLException {
+        int current = readVersion(conn);
+        int applied = 0;
+        if (current == 0 && target >= FRESH_INSTALL.version()) {
+            apply(conn, FRESH_INSTALL);
+            current = FRESH_INSTALL.version();
+            applied++;
+        }
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current || migration.version() > target) {
+                continue;
+            }
+            apply(conn, migration);
+            current = migration.version();
+            applied++;
+        }
+        if (applied > 0) {
+            MessageUtil.info("Database schema migrated to version " + current + " (" + applied + " steps)");
+        }
+        return applied;
+    }
+
+    /** Number of statements in a migration on this backend. */
+    int stepCount(int version) {
+        return steps(migration(version)).size();
+    }
+
+    /**
+     * Runs the first {@code count} statements of a migration without bumping the version, the state a
+     * MariaDB server is left in when a step fails partway or the server stops mid-step.
+     */
+    void applyPartially(Connection conn, int version, int count) throws SQLException {
+        for (Step step : steps(migration(version)).subList(0, count)) {
+            step.apply(conn);
+        }
+    }
+
+    private static Migration migration(int version) {
+        return MIGRATIONS.stream()
+                .filter(m -> m.version() == version)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No schema migration " + version));
+    }
+
+    private List<Step> steps(Migration migration) {
+        return sqlite ? migration.sqlite() : migration.mariadb();
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (Step step : steps(migration)) {
+                step.apply(conn);
+            }
+            writeVersion(conn, migration.version());
+            conn.commit();
+            MessageUtil.info("Applied schema migration " + migration.version() + ": " + migration.description());
+        } catch (SQLException e) {
+            conn.rollback();
+            MessageUtil.error("Schema migration " + migration.version() + " (" + migration.description() + ") failed");
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int readVersion(Connection conn) throws SQLException {
+        if (tableExists(conn, "schema_version")) {
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT version FROM schema_version");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt("version");
+                }
+            }
+        } else {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL)");
+            }
+        }
+
+        // First run of the versioned migrator (or one stopped before its row was written): see where the database stands
+        int baseline = detectBaseline(conn);
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO schema_version (version) VALUES (?)")) {
+            stmt.setInt(1, baseline);
+            stmt.executeUpdate();
+        }
+        if (baseline > 0) {
+            MessageUtil.info("Existing database detected at schema version " + baseline);
+        }
+        return baseline;
+    }
+
+    private int detectBaseline(Connection conn) throws SQLException {
+        if (!tableExists(conn, "envelopes")) {
+            return 0;
+        }
+        if (!isLegacyLayout(conn)) {
+            return 3;
+        }
+        return columnType(conn, "envelopes", "currency_type") != null ? 2 : 1;
+    }
+
+    private void writeVersion(Connection conn, int version) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE schema_version SET version = ?")) {
+            stmt.setInt(1, version);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** The original schema stored UUIDs as VARCHAR(36). */
+    private static boolean isLegacyLayout(Connection conn) throws SQLException {
+        String uuidType = columnType(conn, "envelopes", "uuid");
+        return uuidType != null && uuidType.toUpperCase().contains("CHAR");
+    }
+
+    /** Migration 3 on MariaDB: skipped when an earlier partial run already moved the table aside. */
+    private static void renameLegacyEnvelopes(Connection conn) throws SQLException {
+        if (!isLegacyLayout(conn)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("RENAME TABLE envelopes TO envelopes_legacy");
+        }
+    }
+
+    static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    static String columnType(Connection conn, String table, String column) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, table, column)) {
+            return rs.next() ? rs.getString("TYPE_NAME") : null;
+        }
+    }
+
+    private static Step sql(String statement) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(statement);
+            }
+        };
+    }
+
+    /** SQLite has no ADD COLUMN IF NOT EXISTS, and a baseline detected from the envelopes layout may be behind. */
+    private static Step addColumn(String table, String column, String definition) {
+        return conn -> {
+            if (columnType(conn, table, column) == null) {
+                sql("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition).apply(conn);
+            }
+        };
+    }
+
+    private static Step whenColumnExists(String table, String column, String statement) {
+        return conn -> {
+            if (columnType(conn, table, column) != null) {
+                sql(statement).apply(conn);
+            }
+        };
+    }
+
+    private static List<Step> concat(Step first, List<Step> rest) {
+        List<Step> steps = new ArrayList<>(rest.size() + 1);
+        steps.add(first);
+        steps.addAll(rest);
+        return List.copyOf(steps);
+    }
+
+    /** One statement of a migration; most are plain SQL, a few need a check first. */
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private record Migration(int version, String description, List<Step> sqlite, List<Step> mariadb) {
+    }
+}
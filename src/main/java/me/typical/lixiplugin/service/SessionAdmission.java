@@ -0,0 +1,120 @@
+package me.typical.lixiplugin.service;
+
+import org.bukkit.Location;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Admission control for chat lixi sessions: a global cap and a per-creator cap on open sessions,
+ * with a bounded FIFO queue for sessions that do not fit yet. Queued sessions are admitted in order
+ * as slots free up, skipping any whose creator is still at their own cap. A cap of 0 means no limit.
+ */
+final class SessionAdmission {
+
+    enum Decision {
+        ADMIT, QUEUE, REJECT
+    }
+
+    private final Map<UUID, Integer> activeByCreator = new HashMap<>();
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private int active;
+
+    /** Whether a new session from this creator would be refused outright, checked before any money moves. */
+    synchronized boolean isFull(UUID creator, Limits limits) {
+        return !fits(creator, limits) && !hasQueueRoom(creator, limits);
+    }
+
+    /** Admits the session (counting it as open) or queues it; REJECT leaves no trace. */
+    synchronized Decision offer(ChatLixiService.ChatLixiSession session, Location origin, Limits limits) {
+        UUID creator = session.creatorUuid;
+        // Anything still queued is blocked by its creator's cap (release promotes the rest), so this cannot jump a fitting entry
+        if (fits(creator, limits)) {
+            admit(creator);
+            return Decision.ADMIT;
+        }
+        if (!hasQueueRoom(creator, limits)) {
+            return Decision.REJECT;
+        }
+        queue.addLast(new Pending(session, origin, System.currentTimeMillis()));
+        return Decision.QUEUE;
+    }
+
+    /** Counts a session restored from the journal as open, regardless of the caps. */
+    synchronized void restore(UUID creator) {
+        admit(creator);
+    }
+
+    /** Frees the creator's slot and returns the queued sessions that now fit, already counted as open. */
+    synchronized List<Pending> release(UUID creator, Limits limits) {
+        activeByCreator.computeIfPresent(creator, (key, count) -> count > 1 ? count - 1 : null);
+        active = Math.max(0, active - 1);
+
+        List<Pending> admitted = new ArrayList<>();
+        Iterator<Pending> iterator = queue.iterator();
+        while (iterator.hasNext() && (limits.maxActive() <= 0 || active < limits.maxActive())) {
+            Pending pending = iterator.next();
+            if (fits(pending.session().creatorUuid, limits)) {
+                iterator.remove();
+                admit(pending.session().creatorUuid);
+                admitted.add(pending);
+            }
+        }
+        return admitted;
+    }
+
+    synchronized int getActive() {
+        return active;
+    }
+
+    synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /** Queued sessions in admission order. */
+    synchronized List<Pending> snapshot() {
+        return new ArrayList<>(queue);
+    }
+
+    synchronized void clear() {
+        activeByCreator.clear();
+        queue.clear();
+        active = 0;
+    }
+
+    private boolean fits(UUID creator, Limits limits) {
+        return (limits.maxActive() <= 0 || active < limits.maxActive())
+                && (limits.maxPerCreator() <= 0 || activeByCreator.getOrDefault(creator, 0) < limits.maxPerCreator());
+    }
+
+    private boolean hasQueueRoom(UUID creator, Limits limits) {
+        if (queue.size() >= limits.maxQueued()) {
+            return false;
+        }
+        int queuedByCreator = 0;
+        for (Pending pending : queue) {
+            if (pending.session().creatorUuid.equals(creator)) {
+                queuedByCreator++;
+            }
+        }
+        return queuedByCreator < limits.maxQueuedPerCreator();
+    }
+
+    private void admit(UUID creator) {
+        activeByCreator.merge(creator, 1, Integer::sum);
+        active++;
+    }
+
+    /** @param origin where the creator stood, for the radius filter of the delayed announcement */
+    record Pending(ChatLixiService.ChatLixiSession session, Location origin, long queuedAt) {
+    }
+
+    record Limits(int maxActive, int maxPerCreator, int maxQueued, int maxQueuedPerCreator) {
+    }
+}
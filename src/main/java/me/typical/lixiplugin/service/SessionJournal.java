@@ -0,0 +1,345 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.MessageUtil;
+import me.typical.lixiplugin.util.UuidUtil;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind journal of active chat lixi sessions. A session row (with its pre-split shares) is written
+ * once at creation, still queued, and gets its expiry when it activates; each claim appends one (session,
+ * share index) row, and the rows are deleted when the session finishes. Callers only enqueue; a background thread applies operations in order, in batches.
+ * Claims are the exception that callers wait for: a share is paid only once its claim row is committed,
+ * so a crash can never refund or hand out a share that was already deposited.
+ */
+public class SessionJournal {
+
+    private static final String INSERT_SESSION_SQL = "INSERT INTO chat_sessions "
+            + "(session_uuid, creator_uuid, creator_name, amount_minor, currency_type, shares, created_at, expires_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CLAIM_SQL =
+            "INSERT INTO chat_session_claims (session_uuid, share_index, claimer_uuid) VALUES (?, ?, ?)";
+    private static final String ACTIVATE_SESSION_SQL = "UPDATE chat_sessions SET expires_at = ? WHERE session_uuid = ?";
+    private static final String DELETE_CLAIMS_SQL = "DELETE FROM chat_session_claims WHERE session_uuid = ?";
+    private static final String DELETE_SESSION_SQL = "DELETE FROM chat_sessions WHERE session_uuid = ?";
+    /** expires_at of a session still waiting for an admission slot; its clock starts when it activates. */
+    public static final long QUEUED = 0L;
+    /** Operations kept for retry when the database is unavailable; beyond this they are logged and dropped. */
+    private static final int MAX_RETRY_BACKLOG = 10_000;
+    /** Failed attempts on its own after which an operation is treated as poison and dropped. */
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final DatabaseManager database;
+    private final ConcurrentLinkedQueue<Operation> pending = new ConcurrentLinkedQueue<>();
+    /** Operations from a failed flush, replayed first; only touched inside flush. */
+    private final List<Operation> retry = new ArrayList<>();
+    private final ScheduledExecutorService writer;
+
+    public SessionJournal(DatabaseManager database, long flushIntervalMs) {
+        this.database = database;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "LiXi-SessionJournal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(50L, flushIntervalMs);
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /** Journals a new session as {@link #QUEUED}; {@link #sessionActivated} sets its expiry. */
+    public void sessionCreated(UUID sessionId, UUID creator, String creatorName, long amount, LixiCurrency currency,
+                               long[] shares, long createdAt) {
+        byte[] packed = pack(shares);
+        pending.add(new Operation(sessionId, "session " + sessionId, INSERT_SESSION_SQL, stmt -> {
+            stmt.setBytes(1, UuidUtil.toBytes(sessionId));
+            stmt.setBytes(2, UuidUtil.toBytes(creator));
+            stmt.setString(3, creatorName);
+            stmt.setLong(4, amount);
+            stmt.setInt(5, DatabaseManager.currencyCode(currency));
+            stmt.setBytes(6, packed);
+            stmt.setLong(7, createdAt);
+            stmt.setLong(8, QUEUED);
+        }));
+    }
+
+    /** The session got its admission slot and is open for claims until {@code expiresAt}. */
+    public void sessionActivated(UUID sessionId, long expiresAt) {
+        pending.add(new Operation(sessionId, "activate session " + sessionId, ACTIVATE_SESSION_SQL, stmt -> {
+            stmt.setLong(1, expiresAt);
+            stmt.setBytes(2, UuidUtil.toBytes(sessionId));
+        }));
+    }
+
+    /**
+     * Journals a claim and flushes right away. The future completes once the claim row is committed, or
+     * exceptionally if it was given up on; either way the share is the claimer's and has to be paid.
+     */
+    public CompletableFuture<Void> shareClaimed(UUID sessionId, int shareIndex, UUID claimer) {
+        Operation operation = new Operation(sessionId, "claim " + shareIndex + " of session " + sessionId + " by " + claimer,
+                INSERT_CLAIM_SQL, stmt -> {
+            stmt.setBytes(1, UuidUtil.toBytes(sessionId));
+            stmt.setInt(2, shareIndex);
+            stmt.setBytes(3, UuidUtil.toBytes(claimer));
+        });
+        pending.add(operation);
+        try {
+            writer.execute(this::flush);
+        } catch (RejectedExecutionException e) {
+            operation.written().completeExceptionally(new IllegalStateException("Session journal is shut down"));
+        }
+        return operation.written();
+    }
+
+    /** The session is finished (drained, expired or refunded); forget it. */
+    public void sessionClosed(UUID sessionId) {
+        pending.add(new Operation(sessionId, "close claims of session " + sessionId, DELETE_CLAIMS_SQL,
+                stmt -> stmt.setBytes(1, UuidUtil.toBytes(sessionId))));
+        pending.add(new Operation(sessionId, "close session " + sessionId, DELETE_SESSION_SQL,
+                stmt -> stmt.setBytes(1, UuidUtil.toBytes(sessionId))));
+    }
+
+    /**
+     * Reads every journaled session with its claims, oldest first. Called once at startup, before any new
+     * session exists. Claim rows left behind by a session that was already closed are removed.
+     */
+    public List<JournaledSession> load() throws SQLException {
+        Map<UUID, JournaledSession> sessions = new LinkedHashMap<>();
+        try (Connection conn = database.getConnection()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM chat_session_claims WHERE session_uuid NOT IN (SELECT session_uuid FROM chat_sessions)");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT session_uuid, creator_uuid, creator_name, "
+                    + "amount_minor, currency_type, shares, created_at, expires_at FROM chat_sessions ORDER BY created_at");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    UUID id = UuidUtil.fromBytes(rs.getBytes("session_uuid"));
+                    sessions.put(id, new JournaledSession(
+                            id,
+                            UuidUtil.fromBytes(rs.getBytes("creator_uuid")),
+                            rs.getString("creator_name"),
+                            rs.getLong("amount_minor"),
+                            DatabaseManager.currencyFromCode(rs.getInt("currency_type")),
+                            unpack(rs.getBytes("shares")),
+                            rs.getLong("created_at"),
+                            rs.getLong("expires_at"),
+                            new HashMap<>()
+                    ));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT session_uuid, share_index, claimer_uuid FROM chat_session_claims");
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    JournaledSession session = sessions.get(UuidUtil.fromBytes(rs.getBytes("session_uuid")));
+                    if (session != null) {
+                        session.claims().put(rs.getInt("share_index"), UuidUtil.fromBytes(rs.getBytes("claimer_uuid")));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(sessions.values());
+    }
+
+    /** Stops the writer and applies everything still queued. */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (!retry.isEmpty()) {
+            MessageUtil.error("Session journal could not write " + retry.size() + " operations before shutdown");
+            drop(retry, "journal shut down");
+            retry.clear();
+        }
+    }
+
+    private synchronized void flush() {
+        List<Operation> batch = new ArrayList<>(retry);
+        retry.clear();
+        Operation next;
+        while ((next = pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try (Connection conn = database.getConnection()) {
+            if (!write(conn, batch)) {
+                isolate(conn, batch);
+            }
+        } catch (SQLException e) {
+            MessageUtil.error("Failed to write " + batch.size() + " session journal operations, will retry: " + e.getMessage());
+            retry.addAll(batch);
+        }
+        if (retry.size() > MAX_RETRY_BACKLOG) {
+            MessageUtil.error("Session journal backlog full, dropping " + retry.size() + " operations");
+            drop(retry, "backlog full");
+            retry.clear();
+        }
+    }
+
+    /**
+     * One bad operation fails the whole transaction, so after a failed batch each operation is applied on
+     * its own. One that keeps failing while the connection is fine is dropped instead of blocking the rest.
+     * Later operations on the same session wait behind a failed one, so a close never overtakes its insert.
+     */
+    private void isolate(Connection conn, List<Operation> batch) throws SQLException {
+        Set<UUID> deferred = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Operation operation = batch.get(i);
+            if (deferred.contains(operation.sessionId)) {
+                retry.add(operation);
+                continue;
+            }
+            if (write(conn, List.of(operation))) {
+                continue;
+            }
+            if (!conn.isValid(1)) {
+                MessageUtil.error("Lost the database connection, " + (batch.size() - i) + " session journal operations will retry");
+                retry.addAll(batch.subList(i, batch.size()));
+                return;
+            }
+            if (++operation.attempts < MAX_ATTEMPTS) {
+                deferred.add(operation.sessionId);
+                retry.add(operation);
+            } else {
+                MessageUtil.error("Dropping session journal operation after " + MAX_ATTEMPTS + " failed attempts: " + operation);
+                drop(List.of(operation), "failed " + MAX_ATTEMPTS + " times");
+            }
+        }
+    }
+
+    private static void drop(List<Operation> operations, String reason) {
+        for (Operation operation : operations) {
+            MessageUtil.warn("Dropped session journal operation: " + operation);
+            operation.written().completeExceptionally(new IllegalStateException("Journal operation dropped: " + reason));
+        }
+    }
+
+    /**
+     * Applies operations in order in one transaction, batching consecutive runs of the same statement.
+     * False if it rolled back.
+     */
+    private boolean write(Connection conn, List<Operation> batch) {
+        try {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int start = 0;
+                while (start < batch.size()) {
+                    String sql = batch.get(start).sql();
+                    int end = start;
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        while (end < batch.size() && batch.get(end).sql().equals(sql)) {
+                            batch.get(end).binder().bind(stmt);
+                            stmt.addBatch();
+                            end++;
+                        }
+                        stmt.executeBatch();
+                    }
+                    start = end;
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            MessageUtil.error("Failed to write " + batch.size() + " session journal operations: " + e.getMessage());
+            return false;
+        }
+        batch.forEach(operation -> operation.written().complete(null));
+        return true;
+    }
+
+    private static byte[] pack(long[] shares) {
+        ByteBuffer buffer = ByteBuffer.allocate(shares.length * Long.BYTES);
+        buffer.asLongBuffer().put(shares);
+        return buffer.array();
+    }
+
+    private static long[] unpack(byte[] bytes) {
+        long[] shares = new long[bytes.length / Long.BYTES];
+        ByteBuffer.wrap(bytes).asLongBuffer().get(shares);
+        return shares;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    private static final class Operation {
+        private final UUID sessionId;
+        private final String description;
+        private final String sql;
+        private final StatementBinder binder;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        /** Failed attempts on its own; only touched by the writer. */
+        private int attempts;
+
+        private Operation(UUID sessionId, String description, String sql, StatementBinder binder) {
+            this.sessionId = sessionId;
+            this.description = description;
+            this.sql = sql;
+            this.binder = binder;
+        }
+
+        String sql() {
+            return sql;
+        }
+
+        StatementBinder binder() {
+            return binder;
+        }
+
+        CompletableFuture<Void> written() {
+            return written;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * @param expiresAt {@link #QUEUED} if the session never got an admission slot
+     * @param claims    share index to claimer, for every claim that reached the journal
+     */
+    public record JournaledSession(UUID sessionId, UUID creator, String creatorName, long amount, LixiCurrency currency,
+                                   long[] shares, long createdAt, long expiresAt, Map<Integer, UUID> claims) {
+
+        public boolean queued() {
+            return expiresAt == QUEUED;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package me.typical.lixiplugin.service;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Claim aggregates for one chat lixi session, updated on every claim so the closing summary needs no scan:
+ * count, total, luckiest claimant, last claim time and a log-linear histogram for percentiles
+ * (8 sub-buckets per power of two, so a reported percentile is within 12.5% of the true value).
+ */
+final class SessionStats {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private final long createdAt;
+    private final AtomicLong claims = new AtomicLong();
+    private final AtomicLong claimedTotal = new AtomicLong();
+    private final AtomicLong lastClaimAt = new AtomicLong();
+    private final AtomicReference<Top> luckiest = new AtomicReference<>();
+    private final AtomicLongArray histogram = new AtomicLongArray(64 * SUB_COUNT);
+
+    /** @param priorClaims claims made before a restart, counted but without amounts */
+    SessionStats(long createdAt, long priorClaims) {
+        this.createdAt = createdAt;
+        this.claims.set(priorClaims);
+    }
+
+    /** Records one claim and returns the claim count including it. */
+    long recordClaim(UUID claimer, String claimerName, long amount, long now) {
+        claimedTotal.addAndGet(amount);
+        lastClaimAt.accumulateAndGet(now, Math::max);
+        histogram.incrementAndGet(bucket(amount));
+
+        Top current = luckiest.get();
+        if (current == null || amount > current.amount()) {
+            Top candidate = new Top(claimer, claimerName, amount);
+            while ((current == null || amount > current.amount()) && !luckiest.compareAndSet(current, candidate)) {
+                current = luckiest.get();
+            }
+        }
+        // Counted last so whoever sees the final count also sees every other field of its claim
+        return claims.incrementAndGet();
+    }
+
+    long getClaims() {
+        return claims.get();
+    }
+
+    long getClaimedTotal() {
+        return claimedTotal.get();
+    }
+
+    /** Luckiest claimant so far, or null before the first claim. */
+    Top getLuckiest() {
+        return luckiest.get();
+    }
+
+    /** Milliseconds from creation to the latest claim, or -1 before the first claim. */
+    long getDrainMillis() {
+        long last = lastClaimAt.get();
+        return last == 0 ? -1 : last - createdAt;
+    }
+
+    /** Approximate amount at the given percentile (0-100) of claimed shares; 0 before the first claim. */
+    long percentile(double percent) {
+        long count = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            count += histogram.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percent / 100.0));
+        long seen = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            seen += histogram.get(i);
+            if (seen >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return bucketValue(histogram.length() - 1);
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_COUNT) {
+            return (int) Math.max(0, value);
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_COUNT - 1);
+        return (magnitude - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /** Lower bound of a bucket, the value a percentile in that bucket is reported as. */
+    private static long bucketValue(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int magnitude = index / SUB_COUNT + SUB_BITS - 1;
+        int sub = index % SUB_COUNT;
+        return (1L << magnitude) | ((long) sub << (magnitude - SUB_BITS));
+    }
+
+    record Top(UUID claimer, String name, long amount) {
+    }
+}
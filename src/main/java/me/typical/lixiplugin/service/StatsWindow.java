@@ -0,0 +1,67 @@
+package me.typical.lixiplugin.service;
+
+/**
+ * Rolling server-wide chat lixi totals over the last {@link #MINUTES} minutes, kept as one slot per
+ * minute. Slots are recycled when their minute comes round again, so reading the window is a sum over
+ * a fixed number of slots and never touches individual sessions.
+ */
+public class StatsWindow {
+
+    public static final int MINUTES = 60;
+
+    private final long[] minute = new long[MINUTES];
+    private final long[] sessions = new long[MINUTES];
+    private final long[] claims = new long[MINUTES];
+    private final long[] claimedTotal = new long[MINUTES];
+    private final long[] drained = new long[MINUTES];
+    private final long[] drainMillis = new long[MINUTES];
+
+    public synchronized void recordClaim(long amount, long now) {
+        int slot = slot(now);
+        claims[slot]++;
+        claimedTotal[slot] += amount;
+    }
+
+    /** @param drainMillis time to drain, or -1 if the session expired with shares left */
+    public synchronized void recordSessionClosed(long drainMillis, long now) {
+        int slot = slot(now);
+        sessions[slot]++;
+        if (drainMillis >= 0) {
+            drained[slot]++;
+            this.drainMillis[slot] += drainMillis;
+        }
+    }
+
+    public synchronized Snapshot snapshot(long now) {
+        long currentMinute = now / 60_000L;
+        long s = 0, c = 0, t = 0, d = 0, dm = 0;
+        for (int i = 0; i < MINUTES; i++) {
+            if (currentMinute - minute[i] < MINUTES) {
+                s += sessions[i];
+                c += claims[i];
+                t += claimedTotal[i];
+                d += drained[i];
+                dm += drainMillis[i];
+            }
+        }
+        return new Snapshot(s, c, t, d, d > 0 ? dm / d : -1);
+    }
+
+    private int slot(long now) {
+        long currentMinute = now / 60_000L;
+        int slot = (int) (currentMinute % MINUTES);
+        if (minute[slot] != currentMinute) {
+            minute[slot] = currentMinute;
+            sessions[slot] = 0;
+            claims[slot] = 0;
+            claimedTotal[slot] = 0;
+            drained[slot] = 0;
+            drainMillis[slot] = 0;
+        }
+        return slot;
+    }
+
+    /** @param averageDrainMillis mean time to drain over fully claimed sessions, or -1 if none */
+    public record Snapshot(long sessions, long claims, long claimedTotal, long drainedSessions, long averageDrainMillis) {
+    }
+}
@@ -0,0 +1,47 @@
+package me.typical.lixiplugin.util;
+
+/** Placeholders that message templates can fill, written as %token% in MessageConfig. */
+public enum MessageSlot {
+    PLAYER("player"),
+    AMOUNT("amount"),
+    LIMIT("limit"),
+    SESSION_ID("session_id"),
+    MIN("min"),
+    MAX("max"),
+    REQUIRED("required"),
+    BALANCE("balance"),
+    NAME("name"),
+    COUNT("count"),
+    LUCKIEST("luckiest"),
+    TOP_AMOUNT("top_amount"),
+    DURATION("duration"),
+    P50("p50"),
+    P90("p90"),
+    NAMES("names");
+
+    private static final MessageSlot[] VALUES = values();
+
+    private final String token;
+
+    MessageSlot(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /** Slot for a token without the surrounding percent signs, or null. */
+    public static MessageSlot fromToken(String token) {
+        for (MessageSlot slot : VALUES) {
+            if (slot.token.equals(token)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    static int count() {
+        return VALUES.length;
+    }
+}
@@ -0,0 +1,196 @@
+package me.typical.lixiplugin.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.event.HoverEvent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A MiniMessage string parsed once into a component tree. %token% placeholders found in text,
+ * click values and hover text become {@link MessageSlot} holes; rendering rebuilds only the
+ * nodes on the path to a hole and shares every static subtree, so sends never re-parse.
+ * Tags that split their text per character ({@code <gradient>}, {@code <rainbow>}) or take a
+ * token as an argument leave no whole token to fill; such messages get their values filled in
+ * before a parse on every render instead.
+ */
+public class MessageTemplate {
+
+    private static final MiniMessage MINI_MESSAGE = MiniMessage.miniMessage();
+    private static final Pattern TOKEN = Pattern.compile("%([a-z_]+)%");
+
+    /** Null when the message is parsed per render. */
+    private final Node root;
+    /** The raw message split around its tokens, for per-render parsing; null when compiled. */
+    private final Segments source;
+
+    private MessageTemplate(Node root, Segments source) {
+        this.root = root;
+        this.source = source;
+    }
+
+    public static MessageTemplate compile(String message) {
+        int[] holes = new int[1];
+        Node root = compileNode(MINI_MESSAGE.deserialize(message), holes);
+        Segments source = Segments.parse(message);
+        int tokens = source != null ? source.slots().length : 0;
+        return holes[0] == tokens ? new MessageTemplate(root, null) : new MessageTemplate(null, source);
+    }
+
+    public Component render() {
+        return render(new String[MessageSlot.count()]);
+    }
+
+    public Component render(MessageSlot a, String va) {
+        String[] values = new String[MessageSlot.count()];
+        values[a.ordinal()] = va;
+        return render(values);
+    }
+
+    public Component render(MessageSlot a, String va, MessageSlot b, String vb) {
+        String[] values = new String[MessageSlot.count()];
+        values[a.ordinal()] = va;
+        values[b.ordinal()] = vb;
+        return render(values);
+    }
+
+    public Component render(MessageSlot a, String va, MessageSlot b, String vb, MessageSlot c, String vc) {
+        String[] values = new String[MessageSlot.count()];
+        values[a.ordinal()] = va;
+        values[b.ordinal()] = vb;
+        values[c.ordinal()] = vc;
+        return render(values);
+    }
+
+    public Component render(MessageSlot a, String va, MessageSlot b, String vb, MessageSlot c, String vc,
+                            MessageSlot d, String vd) {
+        String[] values = new String[MessageSlot.count()];
+        values[a.ordinal()] = va;
+        values[b.ordinal()] = vb;
+        values[c.ordinal()] = vc;
+        values[d.ordinal()] = vd;
+        return render(values);
+    }
+
+    /** For messages with more slots than the fixed overloads cover. */
+    public Component render(Map<MessageSlot, String> slotValues) {
+        String[] values = new String[MessageSlot.count()];
+        slotValues.forEach((slot, value) -> values[slot.ordinal()] = value);
+        return render(values);
+    }
+
+    private Component render(String[] values) {
+        if (root != null) {
+            return root.render(values);
+        }
+        String[] escaped = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            escaped[i] = values[i] != null ? MINI_MESSAGE.escapeTags(values[i]) : null;
+        }
+        return MINI_MESSAGE.deserialize(source.fill(escaped));
+    }
+
+    /** @param holes incremented by the number of slots compiled into the tree */
+    private static Node compileNode(Component component, int[] holes) {
+        List<Node> children = new ArrayList<>(component.children().size());
+        boolean dynamicChildren = false;
+        for (Component child : component.children()) {
+            Node node = compileNode(child, holes);
+            dynamicChildren |= !(node instanceof StaticNode);
+            children.add(node);
+        }
+
+        Segments text = component instanceof TextComponent textComponent ? Segments.parse(textComponent.content()) : null;
+        ClickEvent click = component.clickEvent();
+        Segments clickValue = click != null ? Segments.parse(click.value()) : null;
+        HoverEvent<?> hover = component.hoverEvent();
+        Node hoverText = hover != null && hover.action() == HoverEvent.Action.SHOW_TEXT
+                ? compileNode((Component) hover.value(), holes) : null;
+        holes[0] += (text != null ? text.slots().length : 0) + (clickValue != null ? clickValue.slots().length : 0);
+
+        if (text == null && clickValue == null && (hoverText == null || hoverText instanceof StaticNode) && !dynamicChildren) {
+            return new StaticNode(component);
+        }
+        return new DynamicNode(component, text, click != null ? click.action() : null, clickValue,
+                hoverText instanceof StaticNode ? null : hoverText, dynamicChildren ? children : null);
+    }
+
+    private interface Node {
+        Component render(String[] values);
+    }
+
+    private record StaticNode(Component component) implements Node {
+        @Override
+        public Component render(String[] values) {
+            return component;
+        }
+    }
+
+    private record DynamicNode(Component base, Segments text, ClickEvent.Action clickAction, Segments clickValue,
+                               Node hoverText, List<Node> children) implements Node {
+        @Override
+        public Component render(String[] values) {
+            Component out = base;
+            if (text != null) {
+                out = ((TextComponent) out).content(text.fill(values));
+            }
+            if (clickValue != null) {
+                out = out.clickEvent(ClickEvent.clickEvent(clickAction, clickValue.fill(values)));
+            }
+            if (hoverText != null) {
+                out = out.hoverEvent(HoverEvent.showText(hoverText.render(values)));
+            }
+            if (children != null) {
+                List<Component> rendered = new ArrayList<>(children.size());
+                for (Node child : children) {
+                    rendered.add(child.render(values));
+                }
+                out = out.children(rendered);
+            }
+            return out;
+        }
+    }
+
+    /** Literal text split around placeholder slots: literals[0] slot[0] literals[1] ... literals[n]. */
+    private record Segments(String[] literals, MessageSlot[] slots) {
+
+        /** Null if the string has no known placeholder. */
+        static Segments parse(String value) {
+            Matcher matcher = TOKEN.matcher(value);
+            List<String> literals = new ArrayList<>();
+            List<MessageSlot> slots = new ArrayList<>();
+            int last = 0;
+            while (matcher.find()) {
+                MessageSlot slot = MessageSlot.fromToken(matcher.group(1));
+                if (slot == null) {
+                    continue;
+                }
+                literals.add(value.substring(last, matcher.start()));
+                slots.add(slot);
+                last = matcher.end();
+            }
+            if (slots.isEmpty()) {
+                return null;
+            }
+            literals.add(value.substring(last));
+            return new Segments(literals.toArray(String[]::new), slots.toArray(MessageSlot[]::new));
+        }
+
+        String fill(String[] values) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < slots.length; i++) {
+                builder.append(literals[i]);
+                String value = values[slots[i].ordinal()];
+                // Unfilled slots keep their token so a missing argument is visible rather than blank
+                builder.append(value != null ? value : "%" + slots[i].getToken() + "%");
+            }
+            return builder.append(literals[slots.length]).toString();
+        }
+    }
+}
@@ -12,7 +12,9 @@ import java.util.logging.Logger;
 
 /** MiniMessage send/broadcast utilities. */
 public class MessageUtil {
-    private static final Logger LOGGER = LXPlugin.getInstance().getLogger();
+    // Storage classes also run in tests and benchmarks, where no plugin instance exists
+    private static final Logger LOGGER = LXPlugin.getInstance() != null
+            ? LXPlugin.getInstance().getLogger() : Logger.getLogger("LiXiPlugin");
     private static final MiniMessage MINI_MESSAGE = MiniMessage.miniMessage();
 
     public static void info(String message) {
@@ -33,6 +35,10 @@ public class MessageUtil {
         player.sendMessage(component);
     }
 
+    public static void send(Player player, Component message) {
+        player.sendMessage(message);
+    }
+
     public static void send(Player player, String message, Map<String, String> placeholders) {
         if (message == null || message.isEmpty()) return;
         String processed = replacePlaceholders(message, placeholders);
@@ -1,14 +1,23 @@
 package me.typical.lixiplugin.util;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-/** Parses money strings: 100, 1.5k, 2M, 5.5T. */
+/**
+ * Money as long minor units (1/100 of a coin or point). All arithmetic stays on longs;
+ * conversion to double happens only at the economy/format edges via {@link #toMajor(long)}.
+ * Parses money strings: 100, 1.5k, 2M, 5.5T.
+ */
 public class MoneyUtil {
 
+    public static final long MINOR_PER_MAJOR = 100L;
+
     private static final Pattern MONEY_PATTERN = Pattern.compile("^([0-9]*\\.?[0-9]+)([kMT])?$", Pattern.CASE_INSENSITIVE);
 
-    public static double parseMoneyValue(String input) throws IllegalArgumentException {
+    /** Parses a money string into minor units, rounding to the nearest minor unit. */
+    public static long parseMoneyValue(String input) throws IllegalArgumentException {
         if (input == null || input.isEmpty()) {
             throw new IllegalArgumentException("Money value cannot be null or empty");
         }
@@ -22,30 +31,60 @@ public class MoneyUtil {
         String numberPart = matcher.group(1);
         String suffix = matcher.group(2);
 
-        double baseValue;
+        BigDecimal baseValue;
         try {
-            baseValue = Double.parseDouble(numberPart);
+            baseValue = new BigDecimal(numberPart);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Invalid number format: " + input);
         }
 
-        if (baseValue < 0) {
+        if (baseValue.signum() < 0) {
             throw new IllegalArgumentException("Money value cannot be negative");
         }
 
-        if (suffix == null) {
-            return baseValue;
-        }
-
-        return switch (suffix.toLowerCase()) {
-            case "k" -> baseValue * 1_000;
-            case "m" -> baseValue * 1_000_000;
-            case "t" -> baseValue * 1_000_000_000_000L;
+        int exponent = suffix == null ? 0 : switch (suffix.toLowerCase()) {
+            case "k" -> 3;
+            case "m" -> 6;
+            case "t" -> 12;
             default -> throw new IllegalArgumentException("Unknown suffix: " + suffix);
         };
+
+        try {
+            return baseValue.movePointRight(exponent + 2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Money value too large: " + input);
+        }
+    }
+
+    /** Major (double) amount to minor units, rounding to the nearest unit. */
+    public static long toMinor(double major) {
+        return Math.round(major * MINOR_PER_MAJOR);
+    }
+
+    /** Minor units to a major amount, for economy plugins and formatting only. */
+    public static double toMajor(long minor) {
+        return minor / (double) MINOR_PER_MAJOR;
+    }
+
+    /** Drops the fractional part, for currencies that only hold whole units (PlayerPoints). */
+    public static long truncateToWhole(long minor) {
+        return minor - minor % MINOR_PER_MAJOR;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long minor, long factor) {
+        return Math.multiplyExact(minor, factor);
     }
 
-    public static String formatMoney(double value) {
+    public static String formatMoney(long minor) {
+        double value = toMajor(minor);
         if (value >= 1_000_000_000_000L) {
             return String.format("%.2fT", value / 1_000_000_000_000.0);
         } else if (value >= 1_000_000) {
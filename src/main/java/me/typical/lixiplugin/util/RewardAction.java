@@ -0,0 +1,146 @@
+package me.typical.lixiplugin.util;
+
+import me.typical.lixiplugin.LXPlugin;
+import me.typical.lixiplugin.economy.EconomyProvider;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One item-pack reward, compiled from a lixi.yml command line when the config loads. Common lines that
+ * target the claiming player run natively: {@code give %player% <item> [count]} fills the inventory,
+ * {@code eco give %player% <amount>} deposits through Vault and {@code points give %player% <amount>}
+ * through PlayerPoints. Anything else is kept as a console command with %player% pre-split.
+ */
+public sealed interface RewardAction permits RewardAction.GiveItem, RewardAction.GiveMoney, RewardAction.ConsoleCommand {
+
+    String PLAYER_TOKEN = "%player%";
+
+    void run(Player player);
+
+    static List<RewardAction> compileAll(List<String> commands) {
+        if (commands == null) {
+            return List.of();
+        }
+        List<RewardAction> actions = new ArrayList<>(commands.size());
+        for (String command : commands) {
+            if (command != null && !command.isBlank()) {
+                actions.add(compile(command));
+            }
+        }
+        return List.copyOf(actions);
+    }
+
+    static RewardAction compile(String command) {
+        String line = command.strip();
+        if (line.startsWith("/")) {
+            line = line.substring(1);
+        }
+        ConsoleCommand console = ConsoleCommand.of(line);
+        String[] args = line.split("\\s+");
+        // Only lines aimed at the claimer can skip the console; other targets keep vanilla semantics
+        if (args.length < 3) {
+            return console;
+        }
+        String label = args[0].toLowerCase(Locale.ROOT);
+        if ((label.equals("give") || label.equals("minecraft:give")) && args[1].equals(PLAYER_TOKEN) && args.length <= 4) {
+            GiveItem item = GiveItem.parse(args[2], args.length == 4 ? args[3] : "1");
+            return item != null ? item : console;
+        }
+        if (args.length == 4 && args[1].equalsIgnoreCase("give") && args[2].equals(PLAYER_TOKEN)) {
+            LixiCurrency currency = switch (label) {
+                case "eco", "essentials:eco" -> LixiCurrency.VAULT;
+                // Not "p": other plugins (PlotSquared) register that alias, so it stays a console command
+                case "points", "playerpoints:points" -> LixiCurrency.POINTS;
+                default -> null;
+            };
+            GiveMoney money = currency != null ? GiveMoney.parse(currency, args[3], console) : null;
+            return money != null ? money : console;
+        }
+        return console;
+    }
+
+    /** Adds the item straight to the inventory; what does not fit drops at the player's feet, like /give. */
+    record GiveItem(Material material, int count) implements RewardAction {
+
+        static GiveItem parse(String item, String count) {
+            // Item components or NBT ("diamond_sword[enchantments=...]") need the real command parser
+            if (item.indexOf('[') >= 0 || item.indexOf('{') >= 0) {
+                return null;
+            }
+            Material material = Material.matchMaterial(item);
+            if (material == null || !material.isItem() || material.isAir()) {
+                return null;
+            }
+            try {
+                int amount = Integer.parseInt(count);
+                return amount > 0 ? new GiveItem(material, amount) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void run(Player player) {
+            int maxStack = material.getMaxStackSize();
+            ItemStack[] stacks = new ItemStack[(count + maxStack - 1) / maxStack];
+            for (int i = 0; i < stacks.length; i++) {
+                stacks[i] = new ItemStack(material, Math.min(maxStack, count - i * maxStack));
+            }
+            player.getInventory().addItem(stacks).values()
+                    .forEach(left -> player.getWorld().dropItemNaturally(player.getLocation(), left));
+        }
+    }
+
+    /**
+     * Deposits through the plugin's own economy provider.
+     * @param amount minor units
+     * @param fallback the original line, run instead if the provider is unavailable at claim time
+     */
+    record GiveMoney(LixiCurrency currency, long amount, ConsoleCommand fallback) implements RewardAction {
+
+        static GiveMoney parse(LixiCurrency currency, String amount, ConsoleCommand fallback) {
+            try {
+                long minor = MoneyUtil.parseMoneyValue(amount);
+                if (currency == LixiCurrency.POINTS) {
+                    minor = MoneyUtil.truncateToWhole(minor);
+                }
+                return minor > 0 ? new GiveMoney(currency, minor, fallback) : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void run(Player player) {
+            EconomyProvider provider = LXPlugin.getInstance().getEconomyProvider(currency);
+            if (provider == null || !provider.isAvailable() || !provider.deposit(player, MoneyUtil.toMajor(amount))) {
+                fallback.run(player);
+            }
+        }
+    }
+
+    /** Dispatched from the console; {@code parts} are the literal pieces between %player% tokens. */
+    record ConsoleCommand(String[] parts) implements RewardAction {
+
+        static ConsoleCommand of(String line) {
+            return new ConsoleCommand(line.split(PLAYER_TOKEN, -1));
+        }
+
+        @Override
+        public void run(Player player) {
+            String name = player.getName();
+            StringBuilder command = new StringBuilder(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                command.append(name).append(parts[i]);
+            }
+            LXPlugin plugin = LXPlugin.getInstance();
+            plugin.getServer().dispatchCommand(plugin.getServer().getConsoleSender(), command.toString());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package me.typical.lixiplugin.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/** UUID <-> 16-byte conversion for BINARY(16) columns. */
+public class UuidUtil {
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            throw new IllegalArgumentException("UUID must be 16 bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,100 @@
+package me.typical.lixiplugin.hook;
+
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Held-item classification. Items are Mockito mocks so no server is needed; each getItemMeta() call
+ * stands for the meta copy a real ItemStack makes, and the tests check classify makes at most one.
+ */
+class UniItemHookTest {
+
+    private static final NamespacedKey ID_KEY = new NamespacedKey("lixiplugin", "lixi-id");
+    private static final NamespacedKey TYPE_KEY = new NamespacedKey("lixiplugin", "lixi-type");
+
+    private UniItemHook hook;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        // setup() needs the running plugin for its keys; only the keys matter to classify
+        hook = new UniItemHook();
+        for (String field : new String[]{"lixiIdKey", "lixiTypeKey"}) {
+            Field f = UniItemHook.class.getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(hook, field.equals("lixiIdKey") ? ID_KEY : TYPE_KEY);
+        }
+    }
+
+    @Test
+    void itemsWithoutLixiDataAreNone() {
+        ItemStack air = item(Material.AIR, null);
+        ItemStack stone = item(Material.STONE, null);
+        ItemStack named = item(Material.DIAMOND_SWORD, Map.of());
+
+        assertEquals(UniItemHook.LixiItem.NONE, hook.classify(null));
+        assertEquals(UniItemHook.LixiItem.NONE, hook.classify(air));
+        assertEquals(UniItemHook.LixiItem.NONE, hook.classify(stone));
+        assertEquals(UniItemHook.LixiItem.NONE, hook.classify(named));
+
+        verify(air, never()).getItemMeta();
+        verify(stone, never()).getItemMeta();
+        verify(named).getItemMeta();
+    }
+
+    @Test
+    void itemPackCarriesItsLixiName() {
+        ItemStack pack = item(Material.PAPER, Map.of(TYPE_KEY, "tet"));
+
+        assertEquals(new UniItemHook.LixiItem(UniItemHook.LixiItemKind.ITEM_PACK, "tet", null), hook.classify(pack));
+        verify(pack).getItemMeta();
+    }
+
+    @Test
+    void envelopeCarriesItsId() {
+        UUID id = UUID.randomUUID();
+        ItemStack envelope = item(Material.RED_CANDLE, Map.of(ID_KEY, id.toString()));
+
+        assertEquals(new UniItemHook.LixiItem(UniItemHook.LixiItemKind.ENVELOPE, null, id), hook.classify(envelope));
+        verify(envelope).getItemMeta();
+    }
+
+    @Test
+    void malformedEnvelopeIdIsStillAnEnvelope() {
+        ItemStack envelope = item(Material.RED_CANDLE, Map.of(ID_KEY, "not-a-uuid"));
+
+        assertEquals(new UniItemHook.LixiItem(UniItemHook.LixiItemKind.ENVELOPE, null, null), hook.classify(envelope));
+    }
+
+    /** @param data persistent data strings, or null for an item without meta */
+    private static ItemStack item(Material material, Map<NamespacedKey, String> data) {
+        ItemStack item = mock(ItemStack.class);
+        when(item.getType()).thenReturn(material);
+        when(item.hasItemMeta()).thenReturn(data != null);
+        if (data != null) {
+            PersistentDataContainer container = mock(PersistentDataContainer.class);
+            when(container.get(any(NamespacedKey.class), any()))
+                    .thenAnswer(call -> call.getArgument(1) == PersistentDataType.STRING ? data.get(call.getArgument(0)) : null);
+            ItemMeta meta = mock(ItemMeta.class);
+            when(meta.getPersistentDataContainer()).thenReturn(container);
+            when(item.getItemMeta()).thenReturn(meta);
+        }
+        return item;
+    }
+}
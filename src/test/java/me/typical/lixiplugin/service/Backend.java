@@ -0,0 +1,37 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/** A database the storage tests run against; {@link BackendTest} runs a test once per backend. */
+public enum Backend {
+    SQLITE("SQLite"),
+    MARIADB("MariaDB");
+
+    private final String displayName;
+
+    Backend(String displayName) {
+        this.displayName = displayName;
+    }
+
+    /** Config for a new, empty database; SQLite keeps its file in the data folder passed to start. */
+    public MainConfig.DatabaseConfig emptyDatabase() throws SQLException {
+        return this == SQLITE ? new MainConfig.DatabaseConfig() : TestDatabases.mariaDbConfig();
+    }
+
+    /** A started DatabaseManager on a new, empty database. */
+    public DatabaseManager open(Path dataFolder) throws SQLException {
+        return TestDatabases.start(emptyDatabase(), dataFolder);
+    }
+
+    boolean isAvailable() {
+        return this == SQLITE || TestDatabases.mariaDbAvailable();
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
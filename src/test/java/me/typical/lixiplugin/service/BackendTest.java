@@ -0,0 +1,23 @@
+package me.typical.lixiplugin.service;
+
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A test that runs once per {@link Backend}. The test and its {@code @BeforeEach} methods
+ * can take a {@link Backend} parameter; MariaDB runs are skipped when no server is available.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@TestTemplate
+@ExtendWith(DatabaseBackends.class)
+public @interface BackendTest {
+
+    /** Backends to run on; a test of backend-specific behaviour names just its own. */
+    Backend[] value() default {Backend.SQLITE, Backend.MARIADB};
+}
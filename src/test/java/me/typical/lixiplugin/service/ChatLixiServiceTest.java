@@ -0,0 +1,34 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Double Average share splitting. */
+class ChatLixiServiceTest {
+
+    @Test
+    void sharesAddUpAndEveryShareGetsAtLeastOneUnit() {
+        for (int run = 0; run < 1_000; run++) {
+            long[] money = ChatLixiService.splitShares(1_003L, 7, LixiCurrency.VAULT);
+            assertEquals(1_003L, Arrays.stream(money).sum());
+            assertTrue(Arrays.stream(money).allMatch(share -> share >= 1L));
+
+            long[] points = ChatLixiService.splitShares(1_000L, 10, LixiCurrency.POINTS);
+            assertEquals(1_000L, Arrays.stream(points).sum());
+            assertTrue(Arrays.stream(points).allMatch(share -> share == 100L));
+        }
+    }
+
+    @Test
+    void amountBelowOneUnitPerShareIsRejected() {
+        assertEquals(1_000L, ChatLixiService.minimumSplit(10, LixiCurrency.POINTS));
+        assertThrows(IllegalArgumentException.class, () -> ChatLixiService.splitShares(999L, 10, LixiCurrency.POINTS));
+        assertThrows(IllegalArgumentException.class, () -> ChatLixiService.splitShares(4L, 5, LixiCurrency.VAULT));
+    }
+}
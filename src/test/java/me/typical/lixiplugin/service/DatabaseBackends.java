@@ -0,0 +1,60 @@
+package me.typical.lixiplugin.service;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.Extension;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContextProvider;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Expands a {@link BackendTest} into one invocation per backend. */
+class DatabaseBackends implements TestTemplateInvocationContextProvider {
+
+    @Override
+    public boolean supportsTestTemplate(ExtensionContext context) {
+        return AnnotationSupport.isAnnotated(context.getTestMethod(), BackendTest.class);
+    }
+
+    @Override
+    public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(ExtensionContext context) {
+        BackendTest test = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), BackendTest.class).orElseThrow();
+        return Arrays.stream(test.value()).map(Invocation::new);
+    }
+
+    private record Invocation(Backend backend) implements TestTemplateInvocationContext, ParameterResolver, ExecutionCondition {
+
+        @Override
+        public String getDisplayName(int invocationIndex) {
+            return backend.toString();
+        }
+
+        @Override
+        public List<Extension> getAdditionalExtensions() {
+            return List.of(this);
+        }
+
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            return backend.isAvailable()
+                    ? ConditionEvaluationResult.enabled(backend + " available")
+                    : ConditionEvaluationResult.disabled("No MariaDB server (-Dlixi.test.mariadb) and no Docker");
+        }
+
+        @Override
+        public boolean supportsParameter(ParameterContext parameter, ExtensionContext context) {
+            return parameter.getParameter().getType() == Backend.class;
+        }
+
+        @Override
+        public Object resolveParameter(ParameterContext parameter, ExtensionContext context) {
+            return backend;
+        }
+    }
+}
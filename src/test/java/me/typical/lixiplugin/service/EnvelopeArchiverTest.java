@@ -0,0 +1,78 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.UuidUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Moving old claimed envelopes into envelopes_archive on every backend. */
+class EnvelopeArchiverTest {
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+
+    @BeforeEach
+    void setUp(Backend backend) throws Exception {
+        database = backend.open(dataFolder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @BackendTest
+    void movesOnlyEnvelopesClaimedBeforeTheCutoff() throws SQLException {
+        UUID creator = UUID.randomUUID();
+        UUID old = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        UUID unused = UUID.randomUUID();
+        for (UUID id : new UUID[]{old, recent, unused}) {
+            database.insertEnvelope(id, 400L, creator, LixiCurrency.VAULT).join();
+        }
+        assertTrue(database.claimEnvelope(old).join().isPresent());
+        assertTrue(database.claimEnvelope(recent).join().isPresent());
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE envelopes SET claimed_at = 0 WHERE uuid = ?")) {
+            stmt.setBytes(1, UuidUtil.toBytes(old));
+            stmt.executeUpdate();
+        }
+
+        MainConfig.ArchiveConfig config = new MainConfig.ArchiveConfig();
+        TestDatabases.set(config, "olderThanDays", 1);
+        TestDatabases.set(config, "chunkDelayMs", 0L);
+        EnvelopeArchiver archiver = new EnvelopeArchiver(database, config);
+        archiver.runOnce();
+        archiver.stop();
+
+        assertEquals(1, archiver.getLastRunMoved());
+        assertEquals(1, count("envelopes_archive", old));
+        assertEquals(0, count("envelopes", old));
+        assertEquals(1, count("envelopes", recent));
+        assertEquals(1, count("envelopes", unused));
+    }
+
+    private int count(String table, UUID id) throws SQLException {
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM " + table + " WHERE uuid = ?")) {
+            stmt.setBytes(1, UuidUtil.toBytes(id));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
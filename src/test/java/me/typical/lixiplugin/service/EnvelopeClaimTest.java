@@ -0,0 +1,172 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Envelope claims on every backend. */
+class EnvelopeClaimTest {
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+
+    @BeforeEach
+    void setUp(Backend backend) throws Exception {
+        database = backend.open(dataFolder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @BackendTest
+    void claimPaysOnceWithStoredAmountAndCurrency() {
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 12_345L, UUID.randomUUID(), LixiCurrency.POINTS).join();
+
+        Optional<DatabaseManager.ClaimResult> first = database.claimEnvelope(id).join();
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(12_345L, LixiCurrency.POINTS)), first);
+        assertEquals(Optional.empty(), database.claimEnvelope(id).join());
+    }
+
+    @BackendTest
+    void claimWaitsForQueuedInsert() {
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 500L, UUID.randomUUID(), LixiCurrency.VAULT);
+
+        assertTrue(database.claimEnvelope(id).join().isPresent());
+    }
+
+    @BackendTest
+    void claimedStateSurvivesCacheLoss() {
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 500L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+        assertTrue(database.claimEnvelope(id).join().isPresent());
+
+        database.getCache().invalidate(id);
+        assertEquals(Optional.empty(), database.claimEnvelope(id).join());
+        assertEquals(EnvelopeStatus.CLAIMED, database.getEnvelope(id).join().orElseThrow().status());
+    }
+
+    @BackendTest
+    void repeatClaimIsRejectedFromTheCache() throws Exception {
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 500L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+        assertTrue(database.claimEnvelope(id).join().isPresent());
+
+        // With the table gone a database round trip would fail, so an empty result came from the cache
+        try (Connection conn = database.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE envelopes RENAME TO envelopes_gone");
+        }
+        assertEquals(Optional.empty(), database.claimEnvelope(id).join());
+        assertTrue(database.getCache().isClaimed(id));
+    }
+
+    @BackendTest
+    void unknownEnvelopeIsNotClaimable() {
+        assertEquals(Optional.empty(), database.claimEnvelope(UUID.randomUUID()).join());
+    }
+
+    @BackendTest
+    void databaseErrorFailsClaimInsteadOfReportingClaimed() throws Exception {
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 500L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+        database.getCache().invalidate(id);
+        try (Connection conn = database.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE envelopes RENAME TO envelopes_gone");
+        }
+
+        CompletionException failure = assertThrows(CompletionException.class, () -> database.claimEnvelope(id).join());
+        assertInstanceOf(SQLException.class, failure.getCause());
+        assertFalse(database.getCache().isClaimed(id));
+    }
+
+    @BackendTest
+    void concurrentClaimsPayExactlyOnce() {
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 1_000L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+
+        List<CompletableFuture<Optional<DatabaseManager.ClaimResult>>> claims = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            claims.add(database.claimEnvelope(id));
+        }
+        long paid = claims.stream().map(CompletableFuture::join).filter(Optional::isPresent).count();
+        assertEquals(1, paid);
+    }
+
+    @BackendTest(Backend.SQLITE)
+    void claimSlowerThanOperationTimeoutStillReportsItsResult() throws Exception {
+        MainConfig.DatabaseConfig config = new MainConfig.DatabaseConfig();
+        TestDatabases.set(config, "operationTimeoutMs", 50L);
+        DatabaseManager slow = TestDatabases.start(config, Files.createDirectories(dataFolder.resolve("slow")));
+        try {
+            UUID id = UUID.randomUUID();
+            slow.insertEnvelope(id, 900L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+
+            CompletableFuture<Optional<DatabaseManager.ClaimResult>> claim;
+            // The only connection is busy for well past the timeout
+            try (Connection ignored = slow.getConnection()) {
+                claim = slow.claimEnvelope(id);
+                Thread.sleep(300);
+            }
+            assertEquals(Optional.of(new DatabaseManager.ClaimResult(900L, LixiCurrency.VAULT)), claim.join());
+        } finally {
+            slow.shutdown();
+        }
+    }
+
+    @BackendTest(Backend.SQLITE)
+    void transactionalFallbackMatchesReturning() {
+        database.setUpdateReturning(false);
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 777L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(777L, LixiCurrency.VAULT)), database.claimEnvelope(id).join());
+        assertEquals(Optional.empty(), database.claimEnvelope(id).join());
+    }
+
+    @BackendTest
+    void bulkMintIsClaimableRowByRow() {
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        assertTrue(database.insertEnvelopes(ids, 200L, UUID.randomUUID(), LixiCurrency.VAULT).join());
+
+        for (UUID id : ids) {
+            assertEquals(Optional.of(new DatabaseManager.ClaimResult(200L, LixiCurrency.VAULT)),
+                    database.claimEnvelope(id).join());
+        }
+    }
+
+    @BackendTest
+    void failedBulkMintReportsConfirmedRollback() {
+        UUID duplicate = UUID.randomUUID();
+        List<UUID> ids = List.of(duplicate, UUID.randomUUID(), duplicate);
+
+        assertFalse(database.insertEnvelopes(ids, 200L, UUID.randomUUID(), LixiCurrency.VAULT).join());
+        for (UUID id : ids) {
+            database.getCache().invalidate(id);
+            assertEquals(Optional.empty(), database.claimEnvelope(id).join());
+        }
+    }
+}
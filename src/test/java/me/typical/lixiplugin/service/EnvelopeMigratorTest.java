@@ -0,0 +1,190 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Copying envelopes_legacy into the compact table on every backend. */
+class EnvelopeMigratorTest {
+
+    private static final String LEGACY_TABLE = """
+            CREATE TABLE %s (
+                uuid VARCHAR(36) PRIMARY KEY,
+                amount DOUBLE NOT NULL,
+                creator_uuid VARCHAR(36) NOT NULL,
+                status VARCHAR(10) NOT NULL DEFAULT 'UNUSED',
+                currency_type VARCHAR(10) NOT NULL DEFAULT 'VAULT'
+            )
+            """;
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @BackendTest
+    void convertsEveryRowAndDropsTheLegacyTable(Backend backend) throws SQLException {
+        database = backend.open(dataFolder);
+        createTable(String.format(LEGACY_TABLE, "envelopes_legacy"));
+        UUID creator = UUID.randomUUID();
+        Map<UUID, DatabaseManager.EnvelopeData> expected = new HashMap<>();
+        for (int i = 0; i < 7; i++) {
+            UUID id = UUID.randomUUID();
+            EnvelopeStatus status = i % 3 == 0 ? EnvelopeStatus.CLAIMED : EnvelopeStatus.UNUSED;
+            LixiCurrency currency = i % 2 == 0 ? LixiCurrency.VAULT : LixiCurrency.POINTS;
+            insertLegacy("envelopes_legacy", id.toString(), 10.5 + i, creator.toString(), status.name(), currency.name());
+            expected.put(id, new DatabaseManager.EnvelopeData(1_050L + i * 100L, creator, status, currency));
+        }
+
+        new EnvelopeMigrator(database, 3, 0L).run();
+
+        assertFalse(tableExists("envelopes_legacy"));
+        expected.forEach((id, data) -> assertEquals(Optional.of(data), database.getEnvelope(id).join()));
+        assertEquals(0, countRows("envelopes_quarantine"));
+    }
+
+    @BackendTest
+    void malformedRowsAreQuarantinedNotDeleted(Backend backend) throws SQLException {
+        database = backend.open(dataFolder);
+        createTable(String.format(LEGACY_TABLE, "envelopes_legacy"));
+        UUID good = UUID.randomUUID();
+        String creator = UUID.randomUUID().toString();
+        insertLegacy("envelopes_legacy", good.toString(), 3.0, creator, "UNUSED", "VAULT");
+        insertLegacy("envelopes_legacy", "not-a-uuid", 1.0, creator, "UNUSED", "VAULT");
+        String badStatus = UUID.randomUUID().toString();
+        insertLegacy("envelopes_legacy", badStatus, 2.0, creator, "LOST", "VAULT");
+        String badCurrency = UUID.randomUUID().toString();
+        insertLegacy("envelopes_legacy", badCurrency, 4.25, creator, "UNUSED", "GEMS");
+        String badCreator = UUID.randomUUID().toString();
+        insertLegacy("envelopes_legacy", badCreator, 5.0, "console", "CLAIMED", "POINTS");
+
+        new EnvelopeMigrator(database, 2, 0L).run();
+
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(300L, LixiCurrency.VAULT)),
+                database.claimEnvelope(good).join());
+        assertFalse(tableExists("envelopes_legacy"));
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "SELECT amount, creator_uuid, status, currency_type, reason FROM envelopes_quarantine WHERE uuid = ?")) {
+            assertQuarantined(stmt, "not-a-uuid", 1.0, creator, "UNUSED", "VAULT");
+            assertQuarantined(stmt, badStatus, 2.0, creator, "LOST", "VAULT");
+            assertQuarantined(stmt, badCurrency, 4.25, creator, "UNUSED", "GEMS");
+            assertQuarantined(stmt, badCreator, 5.0, "console", "CLAIMED", "POINTS");
+        }
+        assertEquals(4, countRows("envelopes_quarantine"));
+    }
+
+    @BackendTest
+    void legacyInstallKeepsServingEnvelopesWhileMigrating(Backend backend) throws Exception {
+        MainConfig.DatabaseConfig config = backend.emptyDatabase();
+        TestDatabases.set(config, "migrationChunkSize", 2);
+        TestDatabases.set(config, "migrationChunkDelayMs", 20L);
+        UUID creator = UUID.randomUUID();
+        UUID claimed = UUID.randomUUID();
+        UUID unused = UUID.randomUUID();
+        try (Connection conn = TestDatabases.connect(config, dataFolder)) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(String.format(LEGACY_TABLE, "envelopes"));
+            }
+            insertLegacy(conn, "envelopes", claimed.toString(), 7.0, creator.toString(), "CLAIMED", "VAULT");
+            insertLegacy(conn, "envelopes", unused.toString(), 8.5, creator.toString(), "UNUSED", "POINTS");
+            for (int i = 0; i < 6; i++) {
+                insertLegacy(conn, "envelopes", UUID.randomUUID().toString(), 1.0, creator.toString(), "UNUSED", "VAULT");
+            }
+        }
+        database = TestDatabases.start(config, dataFolder);
+
+        // Whichever table the row is in right now, a claim pays exactly once
+        assertEquals(Optional.empty(), database.claimEnvelope(claimed).join());
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(850L, LixiCurrency.POINTS)),
+                database.claimEnvelope(unused).join());
+        assertEquals(Optional.empty(), database.claimEnvelope(unused).join());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (tableExists("envelopes_legacy") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(tableExists("envelopes_legacy"));
+        assertEquals(8, countRows("envelopes"));
+        assertEquals(Optional.of(new DatabaseManager.EnvelopeData(850L, creator, EnvelopeStatus.CLAIMED, LixiCurrency.POINTS)),
+                database.getEnvelope(unused).join());
+    }
+
+    private void createTable(String sql) throws SQLException {
+        try (Connection conn = database.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private void insertLegacy(String table, String id, double amount, String creator, String status, String currency)
+            throws SQLException {
+        try (Connection conn = database.getConnection()) {
+            insertLegacy(conn, table, id, amount, creator, status, currency);
+        }
+    }
+
+    private static void insertLegacy(Connection conn, String table, String id, double amount, String creator,
+                                     String status, String currency) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + table
+                     + " (uuid, amount, creator_uuid, status, currency_type) VALUES (?, ?, ?, ?, ?)")) {
+            stmt.setString(1, id);
+            stmt.setDouble(2, amount);
+            stmt.setString(3, creator);
+            stmt.setString(4, status);
+            stmt.setString(5, currency);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static void assertQuarantined(PreparedStatement stmt, String id, double amount, String creator,
+                                          String status, String currency) throws SQLException {
+        stmt.setString(1, id);
+        try (ResultSet rs = stmt.executeQuery()) {
+            assertTrue(rs.next(), "row " + id + " was not quarantined");
+            assertEquals(amount, rs.getDouble("amount"));
+            assertEquals(creator, rs.getString("creator_uuid"));
+            assertEquals(status, rs.getString("status"));
+            assertEquals(currency, rs.getString("currency_type"));
+            assertFalse(rs.getString("reason").isBlank());
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (Connection conn = database.getConnection();
+             ResultSet rs = conn.getMetaData().getTables(conn.getCatalog(), null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Connection conn = database.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
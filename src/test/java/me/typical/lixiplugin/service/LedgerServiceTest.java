@@ -0,0 +1,125 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.UuidUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Ledger writes and keyset scans on every backend. */
+class LedgerServiceTest {
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+    LedgerService ledger;
+
+    @BeforeEach
+    void setUp(Backend backend) throws Exception {
+        database = backend.open(dataFolder);
+        ledger = new LedgerService();
+        ledger.start(new MainConfig.LedgerConfig(), database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledger.shutdown();
+        database.shutdown();
+    }
+
+    @BackendTest
+    void recordedEntriesAreWrittenOnShutdown() {
+        UUID actor = UUID.randomUUID();
+        UUID target = UUID.randomUUID();
+        UUID envelope = UUID.randomUUID();
+        long before = System.currentTimeMillis();
+        ledger.record(LedgerType.CREATE, actor, null, 1_250L, LixiCurrency.POINTS, envelope);
+        ledger.record(LedgerType.TRANSFER, actor, target, 300L, LixiCurrency.VAULT, null);
+        ledger.shutdown();
+
+        List<LedgerService.LedgerEntry> entries = ledger.scan(before, System.currentTimeMillis() + 1, null, 10).join();
+        assertEquals(2, entries.size());
+        LedgerService.LedgerEntry create = entries.get(0);
+        assertEquals(LedgerType.CREATE, create.type());
+        assertEquals(1_250L, create.amount());
+        assertEquals(LixiCurrency.POINTS, create.currency());
+        assertNull(create.target());
+        assertEquals(envelope, create.reference());
+        assertEquals(target, entries.get(1).target());
+    }
+
+    @BackendTest
+    void scanPagesByCreatedAtThenIdWithoutGapsOrRepeats() throws SQLException {
+        UUID actor = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        // Ids run against time and several rows share a millisecond, so neither column orders the range alone
+        long[] createdAt = {500, 300, 300, 100, 300, 700, 100, 300, 50, 900};
+        for (int i = 0; i < createdAt.length; i++) {
+            insert(createdAt[i], i % 3 == 0 ? other : actor);
+        }
+
+        List<LedgerService.LedgerEntry> all = pages(after -> ledger.scan(100, 900, after, 2).join());
+        assertEquals(List.of(100L, 100L, 300L, 300L, 300L, 300L, 500L, 700L),
+                all.stream().map(LedgerService.LedgerEntry::createdAt).toList());
+        assertOrdered(all);
+
+        List<LedgerService.LedgerEntry> byActor = pages(after -> ledger.scanByActor(actor, 0, 1_000, after, 2).join());
+        assertEquals(List.of(50L, 300L, 300L, 300L, 300L, 700L),
+                byActor.stream().map(LedgerService.LedgerEntry::createdAt).toList());
+        byActor.forEach(entry -> assertEquals(actor, entry.actor()));
+        assertOrdered(byActor);
+    }
+
+    private List<LedgerService.LedgerEntry> pages(PageReader reader) {
+        List<LedgerService.LedgerEntry> all = new ArrayList<>();
+        LedgerService.LedgerEntry after = null;
+        while (true) {
+            List<LedgerService.LedgerEntry> page = reader.read(after);
+            all.addAll(page);
+            if (page.size() < 2) {
+                return all;
+            }
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    private static void assertOrdered(List<LedgerService.LedgerEntry> entries) {
+        for (int i = 1; i < entries.size(); i++) {
+            LedgerService.LedgerEntry previous = entries.get(i - 1);
+            LedgerService.LedgerEntry entry = entries.get(i);
+            boolean ordered = previous.createdAt() < entry.createdAt()
+                    || previous.createdAt() == entry.createdAt() && previous.id() < entry.id();
+            assertTrue(ordered, previous + " before " + entry);
+        }
+    }
+
+    private void insert(long createdAt, UUID actor) throws SQLException {
+        try (Connection conn = database.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("INSERT INTO ledger (created_at, type, actor_uuid, target_uuid, "
+                     + database.amountColumns() + ", currency_type, reference_uuid) VALUES (?, 0, ?, NULL, "
+                     + database.amountPlaceholders() + ", 0, NULL)")) {
+            stmt.setLong(1, createdAt);
+            stmt.setBytes(2, UuidUtil.toBytes(actor));
+            database.bindAmount(stmt, 3, 100L);
+            stmt.executeUpdate();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageReader {
+        List<LedgerService.LedgerEntry> read(LedgerService.LedgerEntry after);
+    }
+}
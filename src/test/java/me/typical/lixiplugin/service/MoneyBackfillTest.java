@@ -0,0 +1,116 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import me.typical.lixiplugin.util.UuidUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** Converting DOUBLE amounts from before schema migration 7 on every backend. */
+class MoneyBackfillTest {
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @BackendTest
+    void existingAmountsAreConvertedInTheBackgroundAndReadCorrectlyMeanwhile(Backend backend) throws Exception {
+        MainConfig.DatabaseConfig config = backend.emptyDatabase();
+        TestDatabases.set(config, "migrationChunkSize", 2);
+        TestDatabases.set(config, "migrationChunkDelayMs", 0L);
+        TestDatabases.set(config, "operationTimeoutMs", 200L);
+        UUID creator = UUID.randomUUID();
+        UUID[] envelopes = new UUID[5];
+        UUID archived = UUID.randomUUID();
+        try (Connection conn = TestDatabases.connect(config, dataFolder)) {
+            new SchemaMigrator(backend == Backend.SQLITE).migrateTo(conn, 6);
+            // 0.29 * 100 is 28.999999999999996, so a truncating conversion would lose a unit
+            for (int i = 0; i < envelopes.length; i++) {
+                envelopes[i] = UUID.randomUUID();
+                insertOld(conn, "envelopes", envelopes[i], 0.29 + i, creator);
+            }
+            insertOld(conn, "envelopes_archive", archived, 12.34, creator);
+            try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO ledger "
+                    + "(created_at, type, actor_uuid, target_uuid, amount, currency_type, reference_uuid) VALUES (10, 0, ?, NULL, 56.78, 0, NULL)")) {
+                stmt.setBytes(1, UuidUtil.toBytes(creator));
+                stmt.executeUpdate();
+            }
+        }
+
+        database = TestDatabases.start(config, dataFolder);
+        // Right whether or not the backfill has reached the row yet
+        assertEquals(Optional.of(new DatabaseManager.EnvelopeData(429L, creator, EnvelopeStatus.UNUSED, LixiCurrency.VAULT)),
+                database.getEnvelope(envelopes[4]).join());
+        database.awaitMoneyBackfill(30_000);
+
+        try (Connection conn = database.getConnection()) {
+            for (int i = 0; i < envelopes.length; i++) {
+                assertEquals(29L + i * 100L, amountMinor(conn, "envelopes", envelopes[i]));
+            }
+            assertEquals(1_234L, amountMinor(conn, "envelopes_archive", archived));
+            for (String table : List.of("envelopes", "envelopes_archive", "ledger")) {
+                // MariaDB drops the old column online; SQLite keeps writing it as a shadow
+                if (backend == Backend.SQLITE) {
+                    assertNotNull(SchemaMigrator.columnType(conn, table, "amount"), table);
+                } else {
+                    assertNull(SchemaMigrator.columnType(conn, table, "amount"), table);
+                }
+            }
+        }
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(129L, LixiCurrency.VAULT)),
+                database.claimEnvelope(envelopes[1]).join());
+
+        LedgerService ledger = new LedgerService();
+        ledger.start(new MainConfig.LedgerConfig(), database);
+        try {
+            assertEquals(List.of(5_678L), ledger.scan(0, 100, null, 10).join().stream().map(LedgerService.LedgerEntry::amount).toList());
+        } finally {
+            ledger.shutdown();
+        }
+
+        UUID fresh = UUID.randomUUID();
+        database.insertEnvelope(fresh, 250L, creator, LixiCurrency.POINTS).join();
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(250L, LixiCurrency.POINTS)), database.claimEnvelope(fresh).join());
+    }
+
+    private static void insertOld(Connection conn, String table, UUID id, double amount, UUID creator) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO " + table
+                + " (uuid, amount, creator_uuid, status, currency_type) VALUES (?, ?, ?, 0, 0)")) {
+            stmt.setBytes(1, UuidUtil.toBytes(id));
+            stmt.setDouble(2, amount);
+            stmt.setBytes(3, UuidUtil.toBytes(creator));
+            stmt.executeUpdate();
+        }
+    }
+
+    private static Long amountMinor(Connection conn, String table, UUID id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT amount_minor FROM " + table + " WHERE uuid = ?")) {
+            stmt.setBytes(1, UuidUtil.toBytes(id));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                long minor = rs.getLong(1);
+                return rs.wasNull() ? null : minor;
+            }
+        }
+    }
+}
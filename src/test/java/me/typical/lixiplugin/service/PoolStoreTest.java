@@ -0,0 +1,156 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Pool share claims and settlement on every backend. */
+class PoolStoreTest {
+
+    private static final UUID CREATOR = UUID.randomUUID();
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+    PoolStore pools;
+
+    @BeforeEach
+    void setUp(Backend backend) throws Exception {
+        database = backend.open(dataFolder);
+        pools = new PoolStore(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private UUID createPool(long... shares) {
+        UUID poolId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        long total = 0;
+        for (long share : shares) {
+            total += share;
+        }
+        assertTrue(pools.create(poolId, CREATOR, "Creator", total, LixiCurrency.VAULT, shares, now, now + 60_000).join());
+        return poolId;
+    }
+
+    @BackendTest
+    void everyShareIsClaimedOnceAndOnePerPlayer() {
+        UUID poolId = createPool(100, 200, 300);
+        UUID first = UUID.randomUUID();
+
+        long paid = 0;
+        PoolStore.PoolClaim claim = pools.claim(poolId, first).join();
+        assertEquals(PoolStore.PoolClaimStatus.CLAIMED, claim.status());
+        assertEquals(CREATOR, claim.creator());
+        paid += claim.amount();
+        assertEquals(PoolStore.PoolClaimStatus.ALREADY_CLAIMED, pools.claim(poolId, first).join().status());
+
+        paid += pools.claim(poolId, UUID.randomUUID()).join().amount();
+        paid += pools.claim(poolId, UUID.randomUUID()).join().amount();
+        assertEquals(600, paid);
+        assertEquals(PoolStore.PoolClaimStatus.EMPTY, pools.claim(poolId, UUID.randomUUID()).join().status());
+    }
+
+    @BackendTest
+    void concurrentClaimersTakeDistinctShares() {
+        long[] shares = new long[10];
+        Arrays.fill(shares, 50);
+        UUID poolId = createPool(shares);
+
+        List<CompletableFuture<PoolStore.PoolClaim>> claims = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            claims.add(pools.claim(poolId, UUID.randomUUID()));
+        }
+        List<PoolStore.PoolClaim> won = claims.stream().map(CompletableFuture::join)
+                .filter(c -> c.status() == PoolStore.PoolClaimStatus.CLAIMED).toList();
+        assertEquals(10, won.size());
+        assertEquals(500, won.stream().mapToLong(PoolStore.PoolClaim::amount).sum());
+    }
+
+    /**
+     * Without SKIP LOCKED every claimer queues on the first free share. Whoever waited on a share that was
+     * taken meanwhile has to move on to the next one instead of reporting the pool empty.
+     */
+    @BackendTest(Backend.MARIADB)
+    void queuedClaimersWithoutSkipLockedStillFindTheRemainingShares() {
+        pools.setSkipLocked(false);
+        for (int round = 0; round < 20; round++) {
+            long[] shares = new long[8];
+            Arrays.fill(shares, 25);
+            UUID poolId = createPool(shares);
+
+            List<CompletableFuture<PoolStore.PoolClaim>> claims = new ArrayList<>();
+            for (int i = 0; i < shares.length * 2; i++) {
+                claims.add(pools.claim(poolId, UUID.randomUUID()));
+            }
+            long won = claims.stream().filter(c -> c.join().status() == PoolStore.PoolClaimStatus.CLAIMED).count();
+            assertEquals(shares.length, won, "round " + round);
+        }
+    }
+
+    @BackendTest
+    void expiredPoolIsNotClaimable() {
+        UUID poolId = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        assertTrue(pools.create(poolId, CREATOR, "Creator", 100, LixiCurrency.VAULT, new long[]{100}, now - 2_000, now - 1_000).join());
+
+        assertEquals(PoolStore.PoolClaimStatus.EXPIRED, pools.claim(poolId, UUID.randomUUID()).join().status());
+        assertEquals(PoolStore.PoolClaimStatus.EXPIRED, pools.claim(UUID.randomUUID(), UUID.randomUUID()).join().status());
+    }
+
+    @BackendTest
+    void settlementRefundsUnclaimedSharesExactlyOnce() {
+        UUID poolId = createPool(100, 200, 300);
+        long claimed = pools.claim(poolId, UUID.randomUUID()).join().amount();
+
+        List<PoolStore.Settlement> settled = pools.settleExpired(Long.MAX_VALUE).join();
+        assertEquals(List.of(new PoolStore.Settlement(poolId, CREATOR, LixiCurrency.VAULT, 600 - claimed)), settled);
+        assertEquals(List.of(), pools.settleExpired(Long.MAX_VALUE).join());
+        assertEquals(PoolStore.PoolClaimStatus.EXPIRED, pools.claim(poolId, UUID.randomUUID()).join().status());
+    }
+
+    @BackendTest
+    void releasedShareCanBeClaimedAgain() {
+        UUID poolId = createPool(250);
+        UUID unpaid = UUID.randomUUID();
+        assertEquals(PoolStore.PoolClaimStatus.CLAIMED, pools.claim(poolId, unpaid).join().status());
+
+        assertTrue(pools.release(poolId, unpaid).join());
+        PoolStore.PoolClaim retry = pools.claim(poolId, UUID.randomUUID()).join();
+        assertEquals(PoolStore.PoolClaimStatus.CLAIMED, retry.status());
+        assertEquals(250, retry.amount());
+    }
+
+    @BackendTest
+    void releaseAfterSettlementReportsShareAsOwed() {
+        UUID poolId = createPool(250, 250);
+        UUID unpaid = UUID.randomUUID();
+        pools.claim(poolId, unpaid).join();
+        pools.settleExpired(Long.MAX_VALUE).join();
+
+        assertFalse(pools.release(poolId, unpaid).join());
+    }
+
+    @BackendTest
+    void createReportsRollbackWhenPoolIdIsTaken() {
+        UUID poolId = createPool(100);
+        long now = System.currentTimeMillis();
+
+        assertFalse(pools.create(poolId, CREATOR, "Creator", 100, LixiCurrency.VAULT, new long[]{100}, now - 5_000, now + 60_000).join());
+    }
+}
@@ -0,0 +1,38 @@
+package me.typical.lixiplugin.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Token bucket refill and throttling notices. */
+class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void rejectedPlayerIsToldOncePerRefillInterval() {
+        // Two requests in a burst, one regained every two seconds
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(2, 0);
+        assertEquals(RateLimiter.Outcome.ALLOWED, bucket.tryAcquire(0, 2, 0.5));
+        assertEquals(RateLimiter.Outcome.ALLOWED, bucket.tryAcquire(0, 2, 0.5));
+
+        assertEquals(RateLimiter.Outcome.REJECTED, bucket.tryAcquire(SECOND / 10, 2, 0.5));
+        for (long at = SECOND / 5; at < SECOND; at += SECOND / 10) {
+            assertEquals(RateLimiter.Outcome.REJECTED_QUIETLY, bucket.tryAcquire(at, 2, 0.5), "at " + at);
+        }
+
+        // A token is back two seconds after the burst and is spent at once
+        assertEquals(RateLimiter.Outcome.ALLOWED, bucket.tryAcquire(2 * SECOND, 2, 0.5));
+        assertEquals(RateLimiter.Outcome.REJECTED_QUIETLY, bucket.tryAcquire(2 * SECOND, 2, 0.5));
+        // Two seconds after the last notice the player is told again
+        assertEquals(RateLimiter.Outcome.REJECTED, bucket.tryAcquire(2 * SECOND + SECOND / 10, 2, 0.5));
+    }
+
+    @Test
+    void bucketWithoutRefillNotifiesOnlyOnce() {
+        RateLimiter.Bucket bucket = new RateLimiter.Bucket(1, 0);
+        assertEquals(RateLimiter.Outcome.ALLOWED, bucket.tryAcquire(0, 1, 0));
+        assertEquals(RateLimiter.Outcome.REJECTED, bucket.tryAcquire(1, 1, 0));
+        assertEquals(RateLimiter.Outcome.REJECTED_QUIETLY, bucket.tryAcquire(3_600 * SECOND, 1, 0));
+    }
+}
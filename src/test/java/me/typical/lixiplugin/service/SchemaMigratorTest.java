@@ -0,0 +1,150 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Fresh installs and upgrades from older schemas on every backend. */
+class SchemaMigratorTest {
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @BackendTest
+    void freshInstallCreatesFinalSchemaWithoutLegacyTable(Backend backend) throws Exception {
+        database = backend.open(dataFolder);
+
+        try (Connection conn = database.getConnection()) {
+            assertFalse(SchemaMigrator.tableExists(conn, "envelopes_legacy"));
+            assertTrue(SchemaMigrator.tableExists(conn, "envelopes_quarantine"));
+            assertEquals(SchemaMigrator.latestVersion(), version(conn));
+        }
+        UUID id = UUID.randomUUID();
+        database.insertEnvelope(id, 250L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(250L, LixiCurrency.VAULT)), database.claimEnvelope(id).join());
+    }
+
+    @BackendTest
+    void upToDateDatabaseRunsNoSteps(Backend backend) throws Exception {
+        MainConfig.DatabaseConfig config = backend.emptyDatabase();
+        TestDatabases.start(config, dataFolder).shutdown();
+
+        try (Connection conn = TestDatabases.connect(config, dataFolder)) {
+            assertEquals(0, new SchemaMigrator(backend == Backend.SQLITE).migrate(conn));
+        }
+    }
+
+    @BackendTest
+    void unversionedLegacyInstallStartsFromItsDetectedVersion(Backend backend) throws Exception {
+        MainConfig.DatabaseConfig config = backend.emptyDatabase();
+        UUID creator = UUID.randomUUID();
+        UUID unused = UUID.randomUUID();
+        try (Connection conn = TestDatabases.connect(config, dataFolder)) {
+            try (Statement stmt = conn.createStatement()) {
+                // Version 1: no currency_type yet
+                stmt.execute("""
+                        CREATE TABLE envelopes (
+                            uuid VARCHAR(36) PRIMARY KEY,
+                            amount DOUBLE NOT NULL,
+                            creator_uuid VARCHAR(36) NOT NULL,
+                            status VARCHAR(10) NOT NULL DEFAULT 'UNUSED'
+                        )
+                        """);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO envelopes (uuid, amount, creator_uuid, status) VALUES (?, 4.75, ?, 'UNUSED')")) {
+                stmt.setString(1, unused.toString());
+                stmt.setString(2, creator.toString());
+                stmt.executeUpdate();
+            }
+        }
+
+        database = TestDatabases.start(config, dataFolder);
+
+        try (Connection conn = database.getConnection()) {
+            assertEquals(SchemaMigrator.latestVersion(), version(conn));
+        }
+        assertEquals(Optional.of(new DatabaseManager.EnvelopeData(475L, creator, EnvelopeStatus.UNUSED, LixiCurrency.VAULT)),
+                database.getEnvelope(unused).join());
+    }
+
+    @BackendTest
+    void emptyVersionTableIsTreatedAsUnversioned(Backend backend) throws Exception {
+        MainConfig.DatabaseConfig config = backend.emptyDatabase();
+        UUID id = UUID.randomUUID();
+        database = TestDatabases.start(config, dataFolder);
+        database.insertEnvelope(id, 300L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+        database.shutdown();
+        try (Connection conn = TestDatabases.connect(config, dataFolder);
+             Statement stmt = conn.createStatement()) {
+            // A start that stopped between creating schema_version and writing its row
+            stmt.execute("DELETE FROM schema_version");
+        }
+
+        database = TestDatabases.start(config, dataFolder);
+
+        try (Connection conn = database.getConnection()) {
+            assertEquals(SchemaMigrator.latestVersion(), version(conn));
+        }
+        assertEquals(Optional.of(new DatabaseManager.ClaimResult(300L, LixiCurrency.VAULT)), database.claimEnvelope(id).join());
+    }
+
+    /**
+     * MariaDB commits each DDL statement on its own, so a step can stop partway and leave the version behind.
+     * Every prefix of every step must be safe to run again. SQLite rolls back the whole step instead.
+     */
+    @BackendTest(Backend.MARIADB)
+    void partiallyAppliedStepRunsAgainOnNextStart(Backend backend) throws Exception {
+        SchemaMigrator migrator = new SchemaMigrator(false);
+        for (int version = 2; version <= SchemaMigrator.latestVersion(); version++) {
+            for (int count = 1; count <= migrator.stepCount(version); count++) {
+                MainConfig.DatabaseConfig config = backend.emptyDatabase();
+                try (Connection conn = TestDatabases.connect(config, dataFolder)) {
+                    migrator.migrateTo(conn, version - 1);
+                    migrator.applyPartially(conn, version, count);
+
+                    String attempt = "migration " + version + " after " + count + " statements";
+                    assertEquals(SchemaMigrator.latestVersion() - version + 1, migrator.migrate(conn), attempt);
+                    assertEquals(SchemaMigrator.latestVersion(), version(conn), attempt);
+                }
+
+                database = TestDatabases.start(config, dataFolder);
+                UUID id = UUID.randomUUID();
+                database.insertEnvelope(id, 100L, UUID.randomUUID(), LixiCurrency.VAULT).join();
+                assertTrue(database.claimEnvelope(id).join().isPresent());
+                database.shutdown();
+                database = null;
+            }
+        }
+    }
+
+    private static int version(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
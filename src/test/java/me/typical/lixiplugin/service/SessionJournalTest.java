@@ -0,0 +1,127 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Chat session journal writes and replay on every backend. */
+class SessionJournalTest {
+
+    private static final long[] SHARES = {300, 200, 100};
+
+    @TempDir
+    Path dataFolder;
+    DatabaseManager database;
+
+    @BeforeEach
+    void setUp(Backend backend) throws Exception {
+        database = backend.open(dataFolder);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @BackendTest
+    void claimIsCommittedBeforeItsFutureCompletes() throws Exception {
+        // A flush interval this long means only the claim itself can have triggered the write
+        SessionJournal journal = new SessionJournal(database, 60_000);
+        try {
+            UUID session = UUID.randomUUID();
+            UUID claimer = UUID.randomUUID();
+            journal.sessionCreated(session, UUID.randomUUID(), "Creator", 600, LixiCurrency.VAULT, SHARES, 1_000);
+            journal.shareClaimed(session, 0, claimer).get(5, TimeUnit.SECONDS);
+
+            List<SessionJournal.JournaledSession> loaded = journal.load();
+            assertEquals(1, loaded.size());
+            assertArrayEquals(SHARES, loaded.get(0).shares());
+            assertEquals(Map.of(0, claimer), loaded.get(0).claims());
+        } finally {
+            journal.shutdown();
+        }
+    }
+
+    @BackendTest
+    void poisonOperationDoesNotBlockLaterWrites() throws Exception {
+        SessionJournal journal = new SessionJournal(database, 50);
+        try {
+            UUID poisoned = UUID.randomUUID();
+            UUID healthy = UUID.randomUUID();
+            UUID claimer = UUID.randomUUID();
+            // creator_name is NOT NULL, so this insert can never succeed
+            journal.sessionCreated(poisoned, UUID.randomUUID(), null, 600, LixiCurrency.VAULT, SHARES, 1_000);
+            CompletableFuture<Void> behindPoison = journal.shareClaimed(poisoned, 0, claimer);
+            journal.sessionCreated(healthy, UUID.randomUUID(), "Creator", 600, LixiCurrency.POINTS, SHARES, 1_000);
+            journal.shareClaimed(healthy, 1, claimer).get(5, TimeUnit.SECONDS);
+
+            List<SessionJournal.JournaledSession> loaded = journal.load();
+            assertEquals(1, loaded.size());
+            assertEquals(healthy, loaded.get(0).sessionId());
+            assertEquals(Map.of(1, claimer), loaded.get(0).claims());
+
+            // Its own session's later writes wait for the poison, which is given up on rather than kept forever
+            behindPoison.handle((ignored, ex) -> null).get(10, TimeUnit.SECONDS);
+        } finally {
+            journal.shutdown();
+        }
+    }
+
+    @BackendTest
+    void queuedSessionGetsItsExpiryOnlyWhenActivated() throws Exception {
+        UUID waiting = UUID.randomUUID();
+        UUID opened = UUID.randomUUID();
+        SessionJournal journal = new SessionJournal(database, 60_000);
+        journal.sessionCreated(waiting, UUID.randomUUID(), "Creator", 600, LixiCurrency.VAULT, SHARES, 1_000);
+        journal.sessionCreated(opened, UUID.randomUUID(), "Creator", 600, LixiCurrency.VAULT, SHARES, 2_000);
+        journal.sessionActivated(opened, 92_000);
+        journal.shutdown();
+
+        SessionJournal restarted = new SessionJournal(database, 60_000);
+        try {
+            List<SessionJournal.JournaledSession> loaded = restarted.load();
+            assertEquals(2, loaded.size());
+            assertEquals(waiting, loaded.get(0).sessionId());
+            assertTrue(loaded.get(0).queued());
+            assertEquals(opened, loaded.get(1).sessionId());
+            assertFalse(loaded.get(1).queued());
+            assertEquals(92_000, loaded.get(1).expiresAt());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @BackendTest
+    void shutdownWritesQueuedOperations() throws Exception {
+        UUID open = UUID.randomUUID();
+        UUID closed = UUID.randomUUID();
+        SessionJournal journal = new SessionJournal(database, 60_000);
+        journal.sessionCreated(open, UUID.randomUUID(), "Creator", 600, LixiCurrency.VAULT, SHARES, 1_000);
+        journal.sessionCreated(closed, UUID.randomUUID(), "Creator", 600, LixiCurrency.VAULT, SHARES, 1_000);
+        journal.sessionClosed(closed);
+        journal.shutdown();
+
+        SessionJournal restarted = new SessionJournal(database, 60_000);
+        try {
+            List<SessionJournal.JournaledSession> loaded = restarted.load();
+            assertEquals(1, loaded.size());
+            assertEquals(open, loaded.get(0).sessionId());
+            assertTrue(loaded.get(0).claims().isEmpty());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+}
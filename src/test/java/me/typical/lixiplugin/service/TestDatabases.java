@@ -0,0 +1,111 @@
+package me.typical.lixiplugin.service;
+
+import me.typical.lixiplugin.config.types.MainConfig;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MariaDBContainer;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens a DatabaseManager without a server. MariaDB tests use the server named by
+ * {@code -Dlixi.test.mariadb=host:port} (with {@code lixi.test.mariadb.user} and
+ * {@code lixi.test.mariadb.password}) and otherwise start one shared container, which needs Docker.
+ */
+public final class TestDatabases {
+
+    private static final AtomicInteger SCHEMAS = new AtomicInteger();
+    private static MariaDBContainer<?> container;
+    private static Boolean mariaDbAvailable;
+
+    private TestDatabases() {
+    }
+
+    /** False when neither a MariaDB server nor Docker is available; MariaDB runs are skipped then. */
+    public static synchronized boolean mariaDbAvailable() {
+        if (mariaDbAvailable == null) {
+            mariaDbAvailable = System.getProperty("lixi.test.mariadb") != null
+                    || DockerClientFactory.instance().isDockerAvailable();
+        }
+        return mariaDbAvailable;
+    }
+
+    /** Config for a new, empty MariaDB schema, so tests never see each other's rows. */
+    public static MainConfig.DatabaseConfig mariaDbConfig() throws SQLException {
+        String host;
+        int port;
+        String user;
+        String password;
+        String address = System.getProperty("lixi.test.mariadb");
+        if (address != null) {
+            int colon = address.lastIndexOf(':');
+            host = colon < 0 ? address : address.substring(0, colon);
+            port = colon < 0 ? 3306 : Integer.parseInt(address.substring(colon + 1));
+            user = System.getProperty("lixi.test.mariadb.user", "root");
+            password = System.getProperty("lixi.test.mariadb.password", "");
+        } else {
+            MariaDBContainer<?> server = container();
+            host = server.getHost();
+            port = server.getMappedPort(3306);
+            user = server.getUsername();
+            password = server.getPassword();
+        }
+
+        String schema = "lixi_test_" + ProcessHandle.current().pid() + "_" + SCHEMAS.incrementAndGet();
+        try (Connection conn = DriverManager.getConnection("jdbc:mariadb://" + host + ":" + port + "/", user, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE DATABASE " + schema);
+        }
+        MainConfig.DatabaseConfig config = new MainConfig.DatabaseConfig();
+        set(config, "type", "MARIADB");
+        set(config, "host", host);
+        set(config, "port", port);
+        set(config, "database", schema);
+        set(config, "username", user);
+        set(config, "password", password);
+        return config;
+    }
+
+    /** Started on first use and left to Testcontainers to remove when the JVM exits. */
+    private static synchronized MariaDBContainer<?> container() {
+        if (container == null) {
+            container = new MariaDBContainer<>("mariadb:11.4").withUsername("root").withPassword("test");
+            container.start();
+        }
+        return container;
+    }
+
+    public static DatabaseManager start(MainConfig.DatabaseConfig config, Path dataFolder) {
+        MainConfig.ArchiveConfig archive = new MainConfig.ArchiveConfig();
+        set(archive, "enabled", false);
+        DatabaseManager database = new DatabaseManager();
+        database.start(config, archive, dataFolder.toFile());
+        return database;
+    }
+
+    /** A plain connection to the database the config names, for setting up tables before start. */
+    public static Connection connect(MainConfig.DatabaseConfig config, Path dataFolder) throws SQLException {
+        if (!config.getType().equalsIgnoreCase("MARIADB")) {
+            return DriverManager.getConnection("jdbc:sqlite:" + dataFolder.resolve("lixi.db").toAbsolutePath());
+        }
+        return DriverManager.getConnection(
+                "jdbc:mariadb://" + config.getHost() + ":" + config.getPort() + "/" + config.getDatabase(),
+                config.getUsername(), config.getPassword());
+    }
+
+    /** Config classes are only ever filled by configlib, so they have no setters. */
+    public static void set(Object target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No config field " + field, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package me.typical.lixiplugin.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.event.ClickEvent;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageTemplateTest {
+
+    private static final MiniMessage MINI_MESSAGE = MiniMessage.miniMessage();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "<green>%player% got %amount%</green>",
+            "<gradient:red:gold>%amount%</gradient>",
+            "<yellow>Lucky: <rainbow>%player% +%amount%</rainbow>!</yellow>",
+            "<bold>%amount%</bold> from <hover:show_text:'<gray>%player%</gray>'>someone</hover>",
+            "<click:run_command:'/lixi claim %session_id%'>[Claim]</click> <transition:red:blue:0.5>%amount%</transition>",
+            "<insert:%player%>shift-click</insert> %amount%"
+    })
+    void rendersLikeReplacingBeforeParsing(String message) {
+        String player = "Notch";
+        String amount = "1,000.50";
+        String session = "0f1e2d3c-0000-4000-8000-000000000000";
+        Component expected = MINI_MESSAGE.deserialize(message
+                .replace("%player%", player).replace("%amount%", amount).replace("%session_id%", session));
+
+        Component rendered = MessageTemplate.compile(message)
+                .render(MessageSlot.PLAYER, player, MessageSlot.AMOUNT, amount, MessageSlot.SESSION_ID, session);
+
+        assertEquals(expected.compact(), rendered.compact());
+    }
+
+    @Test
+    void clickValueIsFilled() {
+        Component rendered = MessageTemplate.compile("<click:run_command:'/lixi claim %session_id%'>[Claim]</click>")
+                .render(MessageSlot.SESSION_ID, "abc");
+
+        assertEquals(ClickEvent.runCommand("/lixi claim abc"), rendered.compact().clickEvent());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"<green>%player%</green>", "<gradient:red:gold>%player%</gradient>"})
+    void valuesAreNeverParsedAsTags(String message) {
+        Component rendered = MessageTemplate.compile(message).render(MessageSlot.PLAYER, "<red>x</red>");
+
+        assertEquals("<red>x</red>", PlainTextComponentSerializer.plainText().serialize(rendered));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"<green>Claimed %amount%</green>", "<rainbow>Claimed %amount%</rainbow>"})
+    void unfilledSlotKeepsItsToken(String message) {
+        assertEquals("Claimed %amount%", PlainTextComponentSerializer.plainText().serialize(MessageTemplate.compile(message).render()));
+    }
+}
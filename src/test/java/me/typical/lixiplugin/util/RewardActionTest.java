@@ -0,0 +1,61 @@
+package me.typical.lixiplugin.util;
+
+import me.typical.lixiplugin.economy.LixiCurrency;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class RewardActionTest {
+
+    @Test
+    void ecoLineDepositsExactMinorUnits() {
+        RewardAction.GiveMoney money = assertInstanceOf(RewardAction.GiveMoney.class,
+                RewardAction.compile("/eco give %player% 0.29"));
+        assertEquals(LixiCurrency.VAULT, money.currency());
+        assertEquals(29L, money.amount());
+    }
+
+    @Test
+    void pointsAreTruncatedToWholeUnits() {
+        RewardAction.GiveMoney money = assertInstanceOf(RewardAction.GiveMoney.class,
+                RewardAction.compile("playerpoints:points give %player% 12.75"));
+        assertEquals(LixiCurrency.POINTS, money.currency());
+        assertEquals(1200L, money.amount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Infinity", "NaN", "-5", "1e9", "0", "0.001", "99999999999999999999", "abc"})
+    void amountsTheExactParserRejectsStayConsoleCommands(String amount) {
+        assertInstanceOf(RewardAction.ConsoleCommand.class, RewardAction.compile("eco give %player% " + amount));
+    }
+
+    @Test
+    void bareAliasIsLeftToTheServer() {
+        assertInstanceOf(RewardAction.ConsoleCommand.class, RewardAction.compile("p give %player% 10"));
+    }
+
+    @Test
+    void otherTargetsKeepConsoleSemantics() {
+        assertInstanceOf(RewardAction.ConsoleCommand.class, RewardAction.compile("eco give Notch 10"));
+        assertInstanceOf(RewardAction.ConsoleCommand.class, RewardAction.compile("give @a diamond 1"));
+    }
+
+    @Test
+    void giveLineFillsInventoryNatively() {
+        RewardAction.GiveItem item = assertInstanceOf(RewardAction.GiveItem.class,
+                RewardAction.compile("minecraft:give %player% diamond 3"));
+        assertEquals(Material.DIAMOND, item.material());
+        assertEquals(3, item.count());
+    }
+
+    @Test
+    void consoleCommandSplitsAroundPlayerToken() {
+        RewardAction.ConsoleCommand console = assertInstanceOf(RewardAction.ConsoleCommand.class,
+                RewardAction.compile("say hi %player%, bye %player%"));
+        assertEquals(3, console.parts().length);
+    }
+}